@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+/**
+ * Every archived booking has ended, so PAST listings read the same rows as ALL ones.
+ */
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    @Query("select a from ArchivedBooking a where a.id = ?1 and (a.ownerId = ?2 or a.user.id = ?2)")
+    Optional<ArchivedBooking> findByIdAndItem_User_IdOrUser_Id(Long bookingId, Long userId);
+
+    List<ArchivedBooking> findAllByUser_Id(Long bookerId);
+
+    @Query("select a from ArchivedBooking a where a.status = ?1 and a.user.id = ?2")
+    List<ArchivedBooking> findByStatusByBooker(Status status, Long bookerId);
+
+    boolean existsByUser_IdAndItem_Id(Long bookerId, Long itemId);
+
+    Optional<ArchivedBooking> findFirstByItem_IdOrderByEndDesc(Long itemId);
+
+    @Query("select a from ArchivedBooking a where a.item.id in ?1 and a.end = " +
+            "(select max(l.end) from ArchivedBooking l where l.item.id = a.item.id)")
+    List<ArchivedBooking> findLatestByItems(Collection<Long> itemIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "insert into bookings_archive (id, start_date, end_date, item_id, booker_id, owner_id, status, " +
+            "deleted_at) select id, start_date, end_date, item_id, booker_id, owner_id, status, deleted_at " +
+            "from bookings where id in ?1", nativeQuery = true)
+    void copyFromBookings(Collection<Long> bookingIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "delete from bookings_archive where item_id = ?1", nativeQuery = true)
+    void deleteAllByItemId(Long itemId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "delete from bookings_archive where booker_id = ?1 or owner_id = ?1", nativeQuery = true)
+    void deleteAllByUserId(Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "update bookings_archive set deleted_at = ?2 where item_id = ?1 and deleted_at is null",
+            nativeQuery = true)
+    void markDeletedByItemId(Long itemId, LocalDateTime deletedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "update bookings_archive set owner_id = ?2 where item_id = ?1", nativeQuery = true)
+    void updateOwnerByItemId(Long itemId, Long ownerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "update bookings_archive set deleted_at = ?2 where deleted_at is null " +
+            "and (booker_id = ?1 or owner_id = ?1)", nativeQuery = true)
+    void markDeletedByUserId(Long userId, LocalDateTime deletedAt);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "delete from bookings_archive where id in " +
+            "(select a.id from bookings_archive a where a.deleted_at < ?1 limit ?2)", nativeQuery = true)
+    int purgeDeleted(LocalDateTime deletedBefore, int limit);
+}
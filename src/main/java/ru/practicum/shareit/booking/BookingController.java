@@ -1,10 +1,16 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.bulkhead.BulkheadGroup;
+import ru.practicum.shareit.bulkhead.Bulkheaded;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -21,18 +27,28 @@ public class BookingController {
     private final BookingService bookingService;
 
     @PostMapping
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<BookingResponseDto> createBooking(@Valid @RequestBody BookingRequestDto dto,
                                                             @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
         return ResponseEntity.ok(bookingService.createBooking(dto, userId));
     }
 
     @PatchMapping("{bookingId}")
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<BookingResponseDto> patchBooking(@PathVariable Long bookingId,
                                                            @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
                                                            @RequestParam Boolean approved) {
         return ResponseEntity.ok(bookingService.approveBooking(bookingId, userId, approved));
     }
 
+    @PatchMapping
+    @Bulkheaded(BulkheadGroup.WRITE)
+    public ResponseEntity<List<BookingDecisionDto>> patchBookings(@RequestBody List<Long> bookingIds,
+                                                                  @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                                  @RequestParam Boolean approved) {
+        return ResponseEntity.ok(bookingService.decideBookings(bookingIds, userId, approved));
+    }
+
     @GetMapping("{bookingId}")
     public ResponseEntity<BookingResponseDto> getBooking(@PathVariable Long bookingId,
                                                          @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
@@ -40,13 +56,27 @@ public class BookingController {
     }
 
     @GetMapping
+    @Bulkheaded(BulkheadGroup.LISTING)
     public ResponseEntity<List<BookingResponseDto>> getBookingsByBooker(@RequestHeader("X-Sharer-User-Id") @NotNull Long bookerId,
                                                                         @RequestParam(required = false,
                                                                                 defaultValue = "ALL") String state) {
             return ResponseEntity.ok(bookingService.getBookingsByBooker(bookerId, state));
     }
 
+    @GetMapping("/owner/stats")
+    public ResponseEntity<BookingStatsDto> getOwnerStats(@RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId) {
+        return ResponseEntity.ok(bookingService.getOwnerStats(ownerId));
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBookingsByOwner(@RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
+                                                            @RequestHeader(name = "Last-Event-ID", required = false)
+                                                            String lastEventId) {
+        return ResponseEntity.ok(bookingService.streamBookingsByOwner(ownerId, lastEventId));
+    }
+
     @GetMapping("/owner")
+    @Bulkheaded(BulkheadGroup.LISTING)
     public ResponseEntity<List<BookingResponseDto>> getBookingsByOwner(@RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
                                                                        @RequestParam(required = false,
                                                                                defaultValue = "ALL") String state) {
@@ -0,0 +1,133 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only booking queries for the listing endpoints. Rows go straight into response DTOs, so nothing is
+ * attached to the persistence context. Listings that include the archive read both tables in one statement,
+ * so a chunk moved by the archive job in between is neither lost nor returned twice.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingReadRepository {
+
+    private static final String SELECT_RESPONSE = "select b.id, b.start_date, b.end_date, b.status, " +
+            "i.id as item_id, i.name as item_name, i.description as item_description, " +
+            "i.is_available as item_available, o.id as owner_id, o.name as owner_name, o.email as owner_email, " +
+            "u.id as booker_id, u.name as booker_name, u.email as booker_email ";
+    private static final String HOT_BY_OWNER = SELECT_RESPONSE + "from bookings b " +
+            "join items i on i.id = b.item_id " +
+            "join users o on o.id = b.owner_id " +
+            "join users u on u.id = b.booker_id " +
+            "where b.deleted_at is null and b.owner_id = :ownerId ";
+    private static final String ARCHIVED_BY_OWNER = SELECT_RESPONSE + "from bookings_archive b " +
+            "join items i on i.id = b.item_id " +
+            "join users o on o.id = b.owner_id " +
+            "join users u on u.id = b.booker_id " +
+            "where b.deleted_at is null and b.owner_id = :ownerId ";
+    private static final String ORDER_BY_START = "order by start_date desc, id desc";
+
+    private static final RowMapper<BookingResponseDto> RESPONSE_MAPPER = (rs, rowNum) -> {
+        User owner = new User(rs.getLong("owner_id"), rs.getString("owner_name"), rs.getString("owner_email"));
+        Item item = new Item();
+        item.setId(rs.getLong("item_id"));
+        item.setName(rs.getString("item_name"));
+        item.setDescription(rs.getString("item_description"));
+        item.setAvailable(rs.getObject("item_available", Boolean.class));
+        item.setUser(owner);
+        BookingResponseDto dto = new BookingResponseDto();
+        dto.setId(rs.getLong("id"));
+        dto.setStart(rs.getObject("start_date", LocalDateTime.class));
+        dto.setEnd(rs.getObject("end_date", LocalDateTime.class));
+        dto.setStatus(Status.valueOf(rs.getString("status")));
+        dto.setItem(item);
+        dto.setUser(new User(rs.getLong("booker_id"), rs.getString("booker_name"), rs.getString("booker_email")));
+        return dto;
+    };
+
+    private static final RowMapper<BookingInItemResponseDto> IN_ITEM_MAPPER = (rs, rowNum) -> {
+        BookingInItemResponseDto dto = new BookingInItemResponseDto();
+        dto.setId(rs.getLong("id"));
+        dto.setStart(rs.getObject("start_date", LocalDateTime.class));
+        dto.setEnd(rs.getObject("end_date", LocalDateTime.class));
+        dto.setItemId(rs.getLong("item_id"));
+        dto.setBookerId(rs.getLong("booker_id"));
+        dto.setStatus(Status.valueOf(rs.getString("status")));
+        return dto;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<BookingResponseDto> findAllByOwner(Long ownerId) {
+        return jdbcTemplate.query(HOT_BY_OWNER + "union all " + ARCHIVED_BY_OWNER + ORDER_BY_START,
+                new MapSqlParameterSource("ownerId", ownerId), RESPONSE_MAPPER);
+    }
+
+    public List<BookingResponseDto> findFutureByOwner(LocalDateTime now, Long ownerId) {
+        return jdbcTemplate.query(HOT_BY_OWNER + "and b.start_date > :now " + ORDER_BY_START,
+                new MapSqlParameterSource("ownerId", ownerId).addValue("now", now), RESPONSE_MAPPER);
+    }
+
+    /**
+     * Every archived booking has ended, so the archive side takes no time condition.
+     */
+    public List<BookingResponseDto> findPastByOwner(LocalDateTime now, Long ownerId) {
+        return jdbcTemplate.query(HOT_BY_OWNER + "and b.end_date < :now union all " + ARCHIVED_BY_OWNER
+                        + ORDER_BY_START,
+                new MapSqlParameterSource("ownerId", ownerId).addValue("now", now), RESPONSE_MAPPER);
+    }
+
+    public List<BookingResponseDto> findCurrentByOwner(LocalDateTime now, Long ownerId) {
+        return jdbcTemplate.query(HOT_BY_OWNER + "and b.start_date < :now and b.end_date > :now " + ORDER_BY_START,
+                new MapSqlParameterSource("ownerId", ownerId).addValue("now", now), RESPONSE_MAPPER);
+    }
+
+    public List<BookingResponseDto> findByStatusByOwner(Status status, Long ownerId) {
+        String sql = status == Status.WAITING
+                ? HOT_BY_OWNER + "and b.status = :status " + ORDER_BY_START
+                : HOT_BY_OWNER + "and b.status = :status union all " + ARCHIVED_BY_OWNER + "and b.status = :status "
+                + ORDER_BY_START;
+        return jdbcTemplate.query(sql, new MapSqlParameterSource("ownerId", ownerId)
+                .addValue("status", status.name()), RESPONSE_MAPPER);
+    }
+
+    public List<BookingInItemResponseDto> findInItemByOwner(Long ownerId) {
+        return jdbcTemplate.query("select b.id, b.start_date, b.end_date, b.item_id, b.booker_id, b.status " +
+                        "from bookings b where b.deleted_at is null and b.owner_id = :ownerId",
+                new MapSqlParameterSource("ownerId", ownerId), IN_ITEM_MAPPER);
+    }
+
+    public List<BookingInItemResponseDto> findInItemByItems(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.query("select b.id, b.start_date, b.end_date, b.item_id, b.booker_id, b.status " +
+                        "from bookings b where b.deleted_at is null and b.item_id in (:itemIds)",
+                new MapSqlParameterSource("itemIds", itemIds), IN_ITEM_MAPPER);
+    }
+
+    public List<BookingInItemResponseDto> findLatestArchivedByItems(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.query("select a.id, a.start_date, a.end_date, a.item_id, a.booker_id, a.status " +
+                        "from bookings_archive a where a.item_id in (:itemIds) and a.deleted_at is null " +
+                        "and a.end_date = (select max(l.end_date) from bookings_archive l " +
+                        "where l.item_id = a.item_id and l.deleted_at is null)",
+                new MapSqlParameterSource("itemIds", itemIds), IN_ITEM_MAPPER);
+    }
+}
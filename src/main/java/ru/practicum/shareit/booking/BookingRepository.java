@@ -1,19 +1,29 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.StatusCount;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.IntervalDto;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    @Query("select b from Booking b where b.id = ?1 and (b.item.user.id = ?2 or b.user.id = ?2)")
+    @Query("select b from Booking b where b.id = ?1 and (b.ownerId = ?2 or b.user.id = ?2)")
     Optional<Booking> findByIdAndItem_User_IdOrUser_Id(Long bookingId, Long userId);
 
     List<Booking> findAllByUser_Id(Long bookerId);
@@ -22,7 +32,10 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     List<Booking> findAllByItem_User_Id(Long ownerId);
 
-    @Query("select b from Booking b where b.item.user.id = ?1")
+    @Query("select b from Booking b join fetch b.user where b.item.id in ?1")
+    List<Booking> findAllByItemIds(Collection<Long> itemIds);
+
+    @Query("select b from Booking b where b.ownerId = ?1")
     List<Booking> findAllByOwner(Long ownerId);
 
     @Query("select b from Booking b where b.start > ?1 and b.user.id = ?2")
@@ -34,25 +47,108 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("select b from Booking b where b.end < ?1 and b.user.id = ?2 and b.item.id = ?3")
     List<Booking> findPastBookingsByBookerAndItem(LocalDateTime now, Long bookerId, Long itemId);
 
+    @Query("select new ru.practicum.shareit.item.dto.IntervalDto(b.start, b.end) from Booking b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.end > ?3 and b.start < ?4 order by b.start")
+    List<IntervalDto> findIntervalsByItem(Long itemId, Collection<Status> statuses,
+                                          LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Counts hot and archived bookings in one statement, so a chunk moved by the archive job in between
+     * is neither lost nor counted twice.
+     */
+    @Query(value = "select b.status as status, count(*) as count from (" +
+            "select status from bookings where deleted_at is null and owner_id = ?1 union all " +
+            "select status from bookings_archive where deleted_at is null and owner_id = ?1) b " +
+            "group by b.status", nativeQuery = true)
+    List<StatusCount> countByOwnerGroupByStatus(Long ownerId);
+
+    @Query("select new ru.practicum.shareit.item.dto.IntervalDto(b.start, b.end) from Booking b " +
+            "where b.ownerId = ?1 and b.end > ?2")
+    List<IntervalDto> findUnfinishedIntervalsByOwner(Long ownerId, LocalDateTime now);
+
     @Query("select b from Booking b where (b.start < ?1 and b.end > ?1) and b.user.id = ?2")
     List<Booking> findCurrentBookingsByBooker(LocalDateTime now, Long bookerId);
 
     @Query("select b from Booking b where b.status = ?1 and b.user.id = ?2")
     List<Booking> findByStatusByBooker(Status status, Long bookerId);
 
-    @Query("select b from Booking b where b.start > ?1 and b.item.user.id = ?2")
+    /**
+     * The earliest start or end at or after {@code now}: the next moment a CURRENT or PAST listing can change.
+     */
+    @Query("select min(case when b.start >= ?1 then b.start else b.end end) from Booking b " +
+            "where b.end >= ?1 and b.user.id = ?2")
+    Optional<LocalDateTime> findNextBoundaryByBooker(LocalDateTime now, Long bookerId);
+
+    @Query("select b from Booking b where b.start > ?1 and b.ownerId = ?2")
     List<Booking> findFutureBookingsByOwner(LocalDateTime now, Long bookerId);
 
-    @Query("select b from Booking b where b.end < ?1 and b.item.user.id = ?2")
+    @Query("select b from Booking b where b.end < ?1 and b.ownerId = ?2")
     List<Booking> findPastBookingsByOwner(LocalDateTime now, Long bookerId);
 
-    @Query("select b from Booking b where (b.start < ?1 and b.end > ?1) and b.item.user.id = ?2")
+    @Query("select b from Booking b where (b.start < ?1 and b.end > ?1) and b.ownerId = ?2")
     List<Booking> findCurrentBookingsByOwner(LocalDateTime now, Long bookerId);
 
-    @Query("select b from Booking b where b.status = ?1 and b.item.user.id = ?2")
+    @Query("select b from Booking b where b.status = ?1 and b.ownerId = ?2")
     List<Booking> findByStatusByOwner(Status status, Long bookerId);
 
+    @Query("select min(case when b.start >= ?1 then b.start else b.end end) from Booking b " +
+            "where b.end >= ?1 and b.ownerId = ?2")
+    Optional<LocalDateTime> findNextBoundaryByOwner(LocalDateTime now, Long ownerId);
+
+    /**
+     * Locks in id order, so two bulk decisions over overlapping ids cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b join fetch b.item where b.id in ?1 order by b.id")
+    List<Booking> findAllByIdInForUpdate(Collection<Long> bookingIds);
+
+    @Modifying
+    @Query("update Booking b set b.status = ?1 where b.id in ?2 and b.status = ?3")
+    int updateBookingStatuses(Status status, Collection<Long> bookingIds, Status expectedStatus);
+
+    @Query(value = "select id from bookings where status = 'WAITING' and start_date < ?1 order by start_date " +
+            "limit ?2 for update", nativeQuery = true)
+    List<Long> findExpiredWaitingIds(LocalDateTime startedBefore, int limit);
+
+    @Query(value = "select id from bookings where end_date < ?1 and status <> 'WAITING' order by id limit ?2 " +
+            "for update", nativeQuery = true)
+    List<Long> findArchivableIds(LocalDateTime endedBefore, int limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "delete from bookings where id in ?1", nativeQuery = true)
+    void deleteAllByIdIn(Collection<Long> bookingIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "delete from bookings where item_id = ?1", nativeQuery = true)
+    void deleteAllByItemId(Long itemId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "delete from bookings where booker_id = ?1 or owner_id = ?1", nativeQuery = true)
+    void deleteAllByUserId(Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "update bookings set deleted_at = ?2 where item_id = ?1 and deleted_at is null", nativeQuery = true)
+    void markDeletedByItemId(Long itemId, LocalDateTime deletedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "update bookings set owner_id = ?2 where item_id = ?1", nativeQuery = true)
+    void updateOwnerByItemId(Long itemId, Long ownerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "update bookings set deleted_at = ?2 where deleted_at is null " +
+            "and (booker_id = ?1 or owner_id = ?1)", nativeQuery = true)
+    void markDeletedByUserId(Long userId, LocalDateTime deletedAt);
+
+    @Transactional
     @Modifying
-    @Query("update Booking b set b.status = ?1 where b.id = ?2")
-    void updateBookingStatus(Status status, Long bookerId);
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "delete from bookings where id in " +
+            "(select b.id from bookings b where b.deleted_at < ?1 limit ?2)", nativeQuery = true)
+    int purgeDeleted(LocalDateTime deletedBefore, int limit);
 }
@@ -2,22 +2,43 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.enums.Decision;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.listing.BookingListingCache;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.stats.OwnerBookingStatsRegistry;
+import ru.practicum.shareit.booking.stream.OwnerBookingStream;
 import ru.practicum.shareit.exceptions.*;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.sharding.ShardRouter;
+import ru.practicum.shareit.sharding.Sharded;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,12 +46,26 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BookingService {
 
+    private static final Comparator<BookingResponseDto> BY_START_DESC = Comparator
+            .comparing(BookingResponseDto::getStart)
+            .reversed();
+
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingReadRepository bookingReadRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final OwnerBookingStatsRegistry ownerBookingStatsRegistry;
+    private final OwnerBookingStream ownerBookingStream;
+    private final BookingListingCache bookingListingCache;
+    private final ShardRouter shardRouter;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${shareit.booking.decisions.max-ids}")
+    private int maxDecisionIds;
 
     @Transactional
+    @Sharded("#dto.itemId")
     public BookingResponseDto createBooking(BookingRequestDto dto, Long userId) {
         Item item = itemRepository.findById(dto.getItemId())
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Cannot make booking. " +
@@ -52,39 +87,114 @@ public class BookingService {
         Booking booking = BookingMapper.BOOKING_MAPPER.toBooking(dto);
         booking.setItem(item);
         booking.setUser(user);
+        booking.setOwnerId(item.getUser().getId());
         booking.setStatus(Status.WAITING);
+        Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(changedEvent(saved, null));
         log.info("booking for item with id {} created by user with id {}", item.getId(), userId);
-        return BookingMapper.BOOKING_MAPPER.toDto(bookingRepository.save(booking));
+        return BookingMapper.BOOKING_MAPPER.toDto(saved);
     }
 
+    /**
+     * The status only changes if it is still the one read here, so of two concurrent decisions one fails
+     * instead of both going through.
+     */
     @Transactional
+    @Sharded("#bookingId")
     public BookingResponseDto approveBooking(Long bookingId, Long userId, Boolean approved) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("no booking with id %d", bookingId)));
-        Item item = booking.getItem();
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException(String.format("no user with id %d", bookingId)));
-        if (item.getUser() != user) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotFoundException(String.format("no user with id %d", bookingId));
+        }
+        if (!booking.getOwnerId().equals(userId)) {
             throw new WrongOwnerException(String.format("user with id %d is not an owner " +
-                    "for item with id %d", userId, item.getId()));
+                    "for item with id %d", userId, booking.getItem().getId()));
         }
         if (booking.getStatus() == Status.APPROVED) {
             throw new BookingConsistencyException(String.format("booking with id %d is already approved", bookingId));
         }
-        if (approved) {
-            booking.setStatus(Status.APPROVED);
-            log.info("booking with id {} approved", bookingId);
+        if (booking.getStatus() == Status.EXPIRED) {
+            throw new BookingConsistencyException(String.format("booking with id %d has expired", bookingId));
         }
-        if (!approved) {
-            booking.setStatus(Status.REJECTED);
-            log.info("booking with id {} rejected", bookingId);
+        Status previousStatus = booking.getStatus();
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        if (bookingRepository.updateBookingStatuses(status, List.of(bookingId), previousStatus) == 0) {
+            throw new BookingConsistencyException(String.format("booking with id %d changed status " +
+                    "while being decided", bookingId));
         }
-        bookingRepository.updateBookingStatus(booking.getStatus(), bookingId);
-        return BookingMapper.BOOKING_MAPPER.toDto(booking);
+        log.info("booking with id {} {}", bookingId, approved ? "approved" : "rejected");
+        eventPublisher.publishEvent(new BookingChangedEvent(bookingId, booking.getItem().getId(), booking.getOwnerId(),
+                booking.getUser().getId(), previousStatus, status, booking.getStart(), booking.getEnd()));
+        BookingResponseDto dto = BookingMapper.BOOKING_MAPPER.toDto(booking);
+        dto.setStatus(status);
+        return dto;
     }
 
+    /**
+     * Approves or rejects many bookings at once. The bookings are checked and locked by one select and moved
+     * out of WAITING by one update; ids that cannot be decided are reported instead of failing the request.
+     * <p>
+     * Under sharding only the shard of {@code userId} is read. It holds every booking of the user's items, so
+     * nothing the user may decide is missed, but a booking kept on another shard is reported as NOT_FOUND
+     * rather than NOT_OWNER.
+     */
+    @Transactional
+    @Sharded("#userId")
+    public List<BookingDecisionDto> decideBookings(Collection<Long> bookingIds, Long userId, Boolean approved) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(bookingIds);
+        if (uniqueIds.size() > maxDecisionIds) {
+            throw new TooManyIdsException(String.format("cannot decide more than %d bookings at once",
+                    maxDecisionIds));
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotFoundException(String.format("no user with id %d", userId));
+        }
+        if (uniqueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Booking> found = bookingRepository.findAllByIdInForUpdate(uniqueIds)
+                .stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        List<BookingDecisionDto> decisions = new ArrayList<>(uniqueIds.size());
+        List<Booking> decided = new ArrayList<>();
+        for (Long bookingId : uniqueIds) {
+            Booking booking = found.get(bookingId);
+            Decision decision;
+            if (booking == null) {
+                decision = Decision.NOT_FOUND;
+            } else if (!booking.getOwnerId().equals(userId)) {
+                decision = Decision.NOT_OWNER;
+            } else if (booking.getStatus() != Status.WAITING) {
+                decision = Decision.NOT_WAITING;
+            } else {
+                decision = approved ? Decision.APPROVED : Decision.REJECTED;
+                decided.add(booking);
+            }
+            decisions.add(new BookingDecisionDto(bookingId, decision));
+        }
+        if (!decided.isEmpty()) {
+            List<Long> decidedIds = decided.stream().map(Booking::getId).collect(Collectors.toList());
+            int updated = bookingRepository.updateBookingStatuses(status, decidedIds, Status.WAITING);
+            if (updated != decided.size()) {
+                throw new BookingConsistencyException(String.format("%d of %d bookings changed status " +
+                        "while being decided", decided.size() - updated, decided.size()));
+            }
+            decided.forEach(booking -> eventPublisher.publishEvent(new BookingChangedEvent(booking.getId(),
+                    booking.getItem().getId(), userId, booking.getUser().getId(), Status.WAITING, status,
+                    booking.getStart(), booking.getEnd())));
+        }
+        log.info("{} of {} bookings {} by user with id {}", decided.size(), uniqueIds.size(),
+                approved ? "approved" : "rejected", userId);
+        return decisions;
+    }
+
+    @Sharded("#bookingId")
     public BookingResponseDto getBooking(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findByIdAndItem_User_IdOrUser_Id(bookingId, userId)
+                .or(() -> archivedBookingRepository.findByIdAndItem_User_IdOrUser_Id(bookingId, userId)
+                        .map(BookingMapper.BOOKING_MAPPER::fromArchive))
                 .orElseThrow(() -> new EntityNotFoundException(String.format("there is no such booking with id %d " +
                         "and owner with id %d", userId, bookingId)));
         return BookingMapper.BOOKING_MAPPER.toDto(booking);
@@ -95,27 +205,40 @@ public class BookingService {
             throw new EntityNotFoundException(String.format("no bookings for user " +
                     "with id %d", bookerId));
         }
+        return bookingListingCache.get(BookingListingCache.Role.BOOKER, bookerId, state,
+                now -> shardRouter.gather(() -> findBookingsByBooker(bookerId, state, now), BY_START_DESC),
+                now -> shardRouter.gather(() -> bookingRepository.findNextBoundaryByBooker(now, bookerId)
+                                .stream()
+                                .collect(Collectors.toList()))
+                        .stream()
+                        .min(LocalDateTime::compareTo)
+                        .orElse(null));
+    }
+
+    private List<BookingResponseDto> findBookingsByBooker(Long bookerId, String state, LocalDateTime now) {
         switch (state) {
             case "ALL":
-                return bookingRepository.findAllByUser_Id(bookerId)
+                return withArchive(bookingRepository.findAllByUser_Id(bookerId),
+                        archivedBookingRepository.findAllByUser_Id(bookerId))
                         .stream()
                         .map(BookingMapper.BOOKING_MAPPER::toDto)
                         .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
                         .collect(Collectors.toList());
             case "FUTURE":
-                return bookingRepository.findFutureBookingsByBooker(LocalDateTime.now(), bookerId)
+                return bookingRepository.findFutureBookingsByBooker(now, bookerId)
                         .stream()
                         .map(BookingMapper.BOOKING_MAPPER::toDto)
                         .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
                         .collect(Collectors.toList());
             case "PAST":
-                return bookingRepository.findPastBookingsByBooker(LocalDateTime.now(), bookerId)
+                return withArchive(bookingRepository.findPastBookingsByBooker(now, bookerId),
+                        archivedBookingRepository.findAllByUser_Id(bookerId))
                         .stream()
                         .map(BookingMapper.BOOKING_MAPPER::toDto)
                         .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
                         .collect(Collectors.toList());
             case "CURRENT":
-                return bookingRepository.findCurrentBookingsByBooker(LocalDateTime.now(), bookerId)
+                return bookingRepository.findCurrentBookingsByBooker(now, bookerId)
                         .stream()
                         .map(BookingMapper.BOOKING_MAPPER::toDto)
                         .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
@@ -127,7 +250,8 @@ public class BookingService {
                         .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
                         .collect(Collectors.toList());
             case "REJECTED":
-                return bookingRepository.findByStatusByBooker(Status.REJECTED, bookerId)
+                return withArchive(bookingRepository.findByStatusByBooker(Status.REJECTED, bookerId),
+                        archivedBookingRepository.findByStatusByBooker(Status.REJECTED, bookerId))
                         .stream()
                         .map(BookingMapper.BOOKING_MAPPER::toDto)
                         .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
@@ -137,50 +261,74 @@ public class BookingService {
         }
     }
 
+    @Sharded("#ownerId")
+    public BookingStatsDto getOwnerStats(Long ownerId) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new EntityNotFoundException(String.format("no bookings for user " +
+                    "with id %d", ownerId));
+        }
+        return ownerBookingStatsRegistry.getStats(ownerId);
+    }
+
+    public SseEmitter streamBookingsByOwner(Long ownerId, String lastEventId) {
+        if (!userRepository.existsById(ownerId)) {
+            throw new EntityNotFoundException(String.format("no bookings for user " +
+                    "with id %d", ownerId));
+        }
+        return ownerBookingStream.subscribe(ownerId, lastEventId);
+    }
+
+    @Sharded("#ownerId")
     public List<BookingResponseDto> getBookingsByOwner(Long ownerId, String state) {
         if (userRepository.findById(ownerId).isEmpty()) {
             throw new EntityNotFoundException(String.format("no bookings for user " +
                     "with id %d", ownerId));
         }
+        return bookingListingCache.get(BookingListingCache.Role.OWNER, ownerId, state,
+                now -> findBookingsByOwner(ownerId, state, now),
+                now -> bookingRepository.findNextBoundaryByOwner(now, ownerId).orElse(null));
+    }
+
+    private List<BookingResponseDto> findBookingsByOwner(Long ownerId, String state, LocalDateTime now) {
         switch (state) {
             case "ALL":
-                return bookingRepository.findAllByOwner(ownerId)
-                        .stream()
-                        .map(BookingMapper.BOOKING_MAPPER::toDto)
-                        .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
-                        .collect(Collectors.toList());
+                return bookingReadRepository.findAllByOwner(ownerId);
             case "FUTURE":
-                return bookingRepository.findFutureBookingsByOwner(LocalDateTime.now(), ownerId)
-                        .stream()
-                        .map(BookingMapper.BOOKING_MAPPER::toDto)
-                        .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
-                        .collect(Collectors.toList());
+                return bookingReadRepository.findFutureByOwner(now, ownerId);
             case "PAST":
-                return bookingRepository.findPastBookingsByOwner(LocalDateTime.now(), ownerId)
-                        .stream()
-                        .map(BookingMapper.BOOKING_MAPPER::toDto)
-                        .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
-                        .collect(Collectors.toList());
+                return bookingReadRepository.findPastByOwner(now, ownerId);
             case "CURRENT":
-                return bookingRepository.findCurrentBookingsByOwner(LocalDateTime.now(), ownerId)
-                        .stream()
-                        .map(BookingMapper.BOOKING_MAPPER::toDto)
-                        .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
-                        .collect(Collectors.toList());
+                return bookingReadRepository.findCurrentByOwner(now, ownerId);
             case "WAITING":
-                return bookingRepository.findByStatusByOwner(Status.WAITING, ownerId)
-                        .stream()
-                        .map(BookingMapper.BOOKING_MAPPER::toDto)
-                        .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
-                        .collect(Collectors.toList());
+                return bookingReadRepository.findByStatusByOwner(Status.WAITING, ownerId);
             case "REJECTED":
-                return bookingRepository.findByStatusByOwner(Status.REJECTED, ownerId)
-                        .stream()
-                        .map(BookingMapper.BOOKING_MAPPER::toDto)
-                        .sorted(Comparator.comparing(BookingResponseDto::getStart).reversed())
-                        .collect(Collectors.toList());
+                return bookingReadRepository.findByStatusByOwner(Status.REJECTED, ownerId);
             default:
                 throw new UnsupportedStateException(state);
         }
     }
+
+    /**
+     * The hot table has to be read first: a chunk archived between the two queries then shows up in both
+     * and is skipped here, instead of being missed by both.
+     */
+    private List<Booking> withArchive(List<Booking> hot, List<ArchivedBooking> archived) {
+        List<Booking> bookings = new ArrayList<>(hot.size() + archived.size());
+        Set<Long> hotIds = new HashSet<>();
+        for (Booking booking : hot) {
+            bookings.add(booking);
+            hotIds.add(booking.getId());
+        }
+        for (ArchivedBooking booking : archived) {
+            if (!hotIds.contains(booking.getId())) {
+                bookings.add(BookingMapper.BOOKING_MAPPER.fromArchive(booking));
+            }
+        }
+        return bookings;
+    }
+
+    private BookingChangedEvent changedEvent(Booking booking, Status previousStatus) {
+        return new BookingChangedEvent(booking.getId(), booking.getItem().getId(), booking.getOwnerId(),
+                booking.getUser().getId(), previousStatus, booking.getStatus(), booking.getStart(), booking.getEnd());
+    }
 }
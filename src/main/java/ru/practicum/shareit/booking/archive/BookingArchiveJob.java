@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.sharding.ShardRouter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves bookings that ended more than {@code after-days} ago from {@code bookings} to {@code bookings_archive},
+ * one chunk per transaction. WAITING bookings stay in the hot table, so WAITING listings never read the archive.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.archive.enabled", havingValue = "true")
+public class BookingArchiveJob {
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    @Value("${shareit.booking.archive.after-days}")
+    private long afterDays;
+    @Value("${shareit.booking.archive.batch-size}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval-ms}",
+            initialDelayString = "${shareit.booking.archive.interval-ms}")
+    public void archive() {
+        shardRouter.forEachShard(this::archiveShard);
+    }
+
+    private void archiveShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            total += moved;
+        } while (moved == batchSize);
+        log.info("{} bookings ended before {} moved to archive", total, cutoff);
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = bookingRepository.findArchivableIds(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedBookingRepository.copyFromBookings(ids);
+        bookingRepository.deleteAllByIdIn(ids);
+        return ids.size();
+    }
+}
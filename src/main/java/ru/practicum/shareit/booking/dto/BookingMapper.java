@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.dto;
 
 import org.mapstruct.factory.Mappers;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 
 public interface BookingMapper {
@@ -9,6 +10,8 @@ public interface BookingMapper {
 
     Booking toBooking(BookingRequestDto dto);
 
+    Booking fromArchive(ArchivedBooking archived);
+
     BookingResponseDto toDto(Booking booking);
 
     BookingInItemResponseDto toBookingInItemDto(Booking booking);
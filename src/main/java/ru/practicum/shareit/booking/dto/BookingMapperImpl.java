@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.dto;
 
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 
 @Component
@@ -17,6 +18,22 @@ public class BookingMapperImpl implements BookingMapper {
         return booking;
     }
 
+    @Override
+    public Booking fromArchive(ArchivedBooking archived) {
+        if (archived == null) {
+            return null;
+        }
+        Booking booking = new Booking();
+        booking.setId(archived.getId());
+        booking.setStart(archived.getStart());
+        booking.setEnd(archived.getEnd());
+        booking.setItem(archived.getItem());
+        booking.setUser(archived.getUser());
+        booking.setOwnerId(archived.getOwnerId());
+        booking.setStatus(archived.getStatus());
+        return booking;
+    }
+
     @Override
     public BookingResponseDto toDto(Booking booking) {
         if (booking == null) {
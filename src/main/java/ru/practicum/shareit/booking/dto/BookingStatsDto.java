@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatsDto {
+
+    private long all;
+    private long waiting;
+    private long approved;
+    private long rejected;
+    private long current;
+    private long future;
+    private long past;
+}
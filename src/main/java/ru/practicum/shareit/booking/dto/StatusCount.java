@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.enums.Status;
+
+public interface StatusCount {
+
+    Status getStatus();
+
+    long getCount();
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.enums;
+
+public enum Decision {
+    APPROVED,
+    REJECTED,
+    NOT_FOUND,
+    NOT_OWNER,
+    NOT_WAITING
+}
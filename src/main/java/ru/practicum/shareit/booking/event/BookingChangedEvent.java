@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published inside the transaction that creates a booking or changes its status.
+ * {@code previousStatus} is null for a new booking.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingChangedEvent {
+
+    private final Long bookingId;
+    private final Long itemId;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final Status previousStatus;
+    private final Status status;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+}
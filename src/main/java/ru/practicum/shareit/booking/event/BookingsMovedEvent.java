@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published inside the transaction that hands an item with its bookings to another owner, after the bookings
+ * were moved from {@code previousOwnerId} to {@code ownerId}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingsMovedEvent {
+
+    private final Long itemId;
+    private final Long previousOwnerId;
+    private final Long ownerId;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published inside the transaction that deletes bookings together with an item or a user. {@code ownerId} is
+ * null when the removed bookings may belong to any owner.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookingsRemovedEvent {
+
+    private final Long ownerId;
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exceptions.BookingConsistencyException;
+import ru.practicum.shareit.sharding.ShardRouter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves WAITING bookings whose start has passed to EXPIRED, one chunk per transaction, so the WAITING set only
+ * holds bookings an owner can still decide. Every expired booking is published as a status change, which keeps
+ * the owner counters, listings and stream in step.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+@ConditionalOnProperty(name = "shareit.booking.expiry.enabled", havingValue = "true")
+public class BookingExpiryJob {
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final Timer runs;
+    private final DistributionSummary batches;
+    private final Counter expired;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            TransactionTemplate transactionTemplate,
+                            ShardRouter shardRouter,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.expiry.batch-size}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.runs = Timer.builder("shareit.booking.expiry.runs")
+                .register(meterRegistry);
+        this.batches = DistributionSummary.builder("shareit.booking.expiry.batch.size")
+                .register(meterRegistry);
+        this.expired = Counter.builder("shareit.booking.expiry.expired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval-ms}",
+            initialDelayString = "${shareit.booking.expiry.interval-ms}")
+    public void expire() {
+        runs.record(() -> shardRouter.forEachShard(this::expireShard));
+    }
+
+    private void expireShard() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> expireChunk(now));
+            total += moved;
+        } while (moved == batchSize);
+        log.info("{} bookings waiting past their start at {} expired", total, now);
+    }
+
+    private int expireChunk(LocalDateTime now) {
+        List<Long> ids = bookingRepository.findExpiredWaitingIds(now, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Booking> bookings = bookingRepository.findAllByIdInForUpdate(ids);
+        int updated = bookingRepository.updateBookingStatuses(Status.EXPIRED, ids, Status.WAITING);
+        if (updated != ids.size()) {
+            throw new BookingConsistencyException(String.format("%d of %d bookings changed status " +
+                    "while being expired", ids.size() - updated, ids.size()));
+        }
+        for (Booking booking : bookings) {
+            eventPublisher.publishEvent(new BookingChangedEvent(booking.getId(), booking.getItem().getId(),
+                    booking.getOwnerId(), booking.getUser().getId(), Status.WAITING, Status.EXPIRED,
+                    booking.getStart(), booking.getEnd()));
+        }
+        batches.record(ids.size());
+        expired.increment(ids.size());
+        return ids.size();
+    }
+}
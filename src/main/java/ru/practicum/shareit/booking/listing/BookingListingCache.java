@@ -0,0 +1,173 @@
+package ru.practicum.shareit.booking.listing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.event.BookingsMovedEvent;
+import ru.practicum.shareit.booking.event.BookingsRemovedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Booking listings by user, role and state. A committed booking write bumps the generation of the stripes of
+ * its booker and its owner; changes whose bookers are not known (removed bookings, renamed items and users,
+ * which listings embed) bump the generation of every user. Keys carry both generations, so a listing stored
+ * before a change is never looked up again, and the bump happens after commit as in the item search cache.
+ * <p>
+ * Listings by time are also dropped when the clock reaches the next boundary that changes them: FUTURE at the
+ * earliest start it holds, CURRENT and PAST at the next start or end of any unfinished booking of the user,
+ * as bookings move into them from outside the cached set.
+ */
+@Component
+public class BookingListingCache {
+
+    private static final int STRIPES = 1024;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLongArray userGenerations = new AtomicLongArray(STRIPES);
+    private final Cache<ListingKey, Listing> cache;
+
+    public BookingListingCache(MeterRegistry meterRegistry,
+                               @Value("${shareit.booking.listing-cache.max-weight}") long maxWeight) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((ListingKey key, Listing listing) -> listing.bookings.size() + 1)
+                .expireAfter(new UntilBoundary())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "bookings.listing");
+    }
+
+    /**
+     * Returns the cached listing, or loads it for the current time. {@code nextBoundary} is only asked
+     * for CURRENT and PAST and may return null when the user has no unfinished bookings.
+     */
+    public List<BookingResponseDto> get(Role role, Long userId, String state,
+                                        Function<LocalDateTime, List<BookingResponseDto>> load,
+                                        Function<LocalDateTime, LocalDateTime> nextBoundary) {
+        ListingKey key = new ListingKey(generation.get(), userGenerations.get(stripe(userId)), role, userId, state);
+        LocalDateTime now = LocalDateTime.now();
+        Listing listing = cache.getIfPresent(key);
+        if (listing != null && listing.isValidAt(now)) {
+            return listing.bookings;
+        }
+        List<BookingResponseDto> bookings = Collections.unmodifiableList(load.apply(now));
+        listing = new Listing(bookings, expiresAt(state, bookings, now, nextBoundary));
+        if (listing.isValidAt(now)) {
+            cache.put(key, listing);
+        }
+        return bookings;
+    }
+
+    @TransactionalEventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        userGenerations.incrementAndGet(stripe(event.getOwnerId()));
+        userGenerations.incrementAndGet(stripe(event.getBookerId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingsRemoved(BookingsRemovedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onBookingsMoved(BookingsMovedEvent event) {
+        userGenerations.incrementAndGet(stripe(event.getPreviousOwnerId()));
+        userGenerations.incrementAndGet(stripe(event.getOwnerId()));
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private LocalDateTime expiresAt(String state, List<BookingResponseDto> bookings, LocalDateTime now,
+                                    Function<LocalDateTime, LocalDateTime> nextBoundary) {
+        switch (state) {
+            case "FUTURE":
+                return bookings.stream()
+                        .map(BookingResponseDto::getStart)
+                        .min(LocalDateTime::compareTo)
+                        .orElse(null);
+            case "CURRENT":
+            case "PAST":
+                return nextBoundary.apply(now);
+            default:
+                return null;
+        }
+    }
+
+    private int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) STRIPES);
+    }
+
+    public enum Role {
+        BOOKER,
+        OWNER
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class ListingKey {
+
+        private final long generation;
+        private final long userGeneration;
+        private final Role role;
+        private final Long userId;
+        private final String state;
+    }
+
+    @AllArgsConstructor
+    private static class Listing {
+
+        private final List<BookingResponseDto> bookings;
+        private final LocalDateTime expiresAt;
+
+        boolean isValidAt(LocalDateTime now) {
+            return expiresAt == null || now.isBefore(expiresAt);
+        }
+    }
+
+    private static class UntilBoundary implements Expiry<ListingKey, Listing> {
+
+        @Override
+        public long expireAfterCreate(ListingKey key, Listing listing, long currentTime) {
+            if (listing.expiresAt == null) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, Duration.between(LocalDateTime.now(), listing.expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ListingKey key, Listing listing, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, listing, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ListingKey key, Listing listing, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
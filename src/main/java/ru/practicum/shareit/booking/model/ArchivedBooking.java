@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Where;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Booking that ended long ago, moved out of {@code bookings} by the archive job. Keeps the original id.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Table(name = "bookings_archive", indexes = {
+        @Index(name = "idx_bookings_archive_booker_end", columnList = "booker_id, end_date"),
+        @Index(name = "idx_bookings_archive_item_end", columnList = "item_id, end_date"),
+        @Index(name = "idx_bookings_archive_owner_start", columnList = "owner_id, start_date")
+})
+@Where(clause = "deleted_at is null")
+public class ArchivedBooking {
+    @Id
+    private Long id;
+    @Column(name = "start_date")
+    private LocalDateTime start;
+    @Column(name = "end_date")
+    private LocalDateTime end;
+    @ManyToOne
+    @JoinColumn(name = "item_id")
+    private Item item;
+    @ManyToOne
+    @JoinColumn(name = "booker_id")
+    private User user;
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        ArchivedBooking booking = (ArchivedBooking) o;
+        return id != null && Objects.equals(id, booking.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
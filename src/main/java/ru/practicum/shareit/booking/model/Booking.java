@@ -1,11 +1,13 @@
 package ru.practicum.shareit.booking.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.Where;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -22,7 +24,14 @@ import java.util.Objects;
 @Setter
 @ToString
 @RequiredArgsConstructor
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_item_end", columnList = "item_id, end_date"),
+        @Index(name = "idx_bookings_end", columnList = "end_date"),
+        @Index(name = "idx_bookings_owner_start", columnList = "owner_id, start_date"),
+        @Index(name = "idx_bookings_owner_status", columnList = "owner_id, status"),
+        @Index(name = "idx_bookings_status_start", columnList = "status, start_date")
+})
+@Where(clause = "deleted_at is null")
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -39,9 +48,17 @@ public class Booking {
     @ManyToOne
     @JoinColumn(name = "booker_id")
     private User user;
+    /**
+     * Owner of the item, copied here so owner queries do not join {@code items}; moves with the item.
+     */
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
     private Status status;
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
 
     @Override
     public boolean equals(Object o) {
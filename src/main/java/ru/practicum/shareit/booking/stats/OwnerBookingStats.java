@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.stats;
+
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+class OwnerBookingStats {
+
+    private long all;
+    private final Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+    private final Map<TimeState, Long> byTime = new EnumMap<>(TimeState.class);
+
+    synchronized void add(Status status, TimeState timeState, long count) {
+        all += count;
+        byStatus.merge(status, count, Long::sum);
+        if (timeState != null) {
+            byTime.merge(timeState, count, Long::sum);
+        }
+    }
+
+    synchronized void addTime(TimeState timeState, long count) {
+        byTime.merge(timeState, count, Long::sum);
+    }
+
+    synchronized void changeStatus(Status from, Status to) {
+        byStatus.merge(from, -1L, Long::sum);
+        byStatus.merge(to, 1L, Long::sum);
+    }
+
+    synchronized void move(TimeState from, TimeState to) {
+        byTime.merge(from, -1L, Long::sum);
+        byTime.merge(to, 1L, Long::sum);
+    }
+
+    synchronized BookingStatsDto toDto() {
+        return new BookingStatsDto(all,
+                byStatus.getOrDefault(Status.WAITING, 0L),
+                byStatus.getOrDefault(Status.APPROVED, 0L),
+                byStatus.getOrDefault(Status.REJECTED, 0L),
+                byTime.getOrDefault(TimeState.CURRENT, 0L),
+                byTime.getOrDefault(TimeState.FUTURE, 0L),
+                byTime.getOrDefault(TimeState.PAST, 0L));
+    }
+}
@@ -0,0 +1,311 @@
+package ru.practicum.shareit.booking.stats;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.dto.StatusCount;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.event.BookingsMovedEvent;
+import ru.practicum.shareit.booking.event.BookingsRemovedEvent;
+import ru.practicum.shareit.item.dto.IntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-owner booking counters. An owner is seeded from the database on the first request and kept up to date
+ * from booking events afterwards; FUTURE -> CURRENT -> PAST moves are queued by time and applied on a schedule.
+ * The moves of an owner leave the queue with the owner, when it is evicted or invalidated, so the queue is
+ * bounded by the owners kept.
+ * <p>
+ * Owners are split into stripes. A change bumps the version of its stripe before its transaction commits and
+ * stays in flight until it is applied, so a seed that overlapped any change of the stripe is not installed:
+ * its query may or may not have seen the row the change is about to be applied for.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class OwnerBookingStatsRegistry {
+
+    private static final int STRIPES = 64;
+    private static final int SEED_ATTEMPTS = 3;
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, OwnerBookingStats> owners;
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicIntegerArray inFlight = new AtomicIntegerArray(STRIPES);
+    private final AtomicLong sequence = new AtomicLong();
+    private final NavigableSet<Transition> transitions = new TreeSet<>(Comparator
+            .comparing((Transition t) -> t.at)
+            .thenComparing(t -> t.from)
+            .thenComparingLong(t -> t.seq));
+    private final Map<Long, Set<Transition>> transitionsByOwner = new HashMap<>();
+
+    public OwnerBookingStatsRegistry(BookingRepository bookingRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${shareit.booking.stats.max-owners}") long maxOwners) {
+        this.bookingRepository = bookingRepository;
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(maxOwners)
+                .executor(Runnable::run)
+                .removalListener((Long ownerId, OwnerBookingStats stats, RemovalCause cause) ->
+                        unschedule(ownerId, stats))
+                .recordStats()
+                .build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        CaffeineCacheMetrics.monitor(meterRegistry, owners, "bookings.stats");
+        Gauge.builder("shareit.booking.stats.transitions", this, OwnerBookingStatsRegistry::scheduledTransitions)
+                .register(meterRegistry);
+    }
+
+    public BookingStatsDto getStats(Long ownerId) {
+        OwnerBookingStats stats = owners.getIfPresent(ownerId);
+        if (stats == null) {
+            stats = seed(ownerId);
+        }
+        return stats.toDto();
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        int stripe = stripe(event.getOwnerId());
+        begin(stripe);
+        afterCompletion(() -> {
+            synchronized (locks[stripe]) {
+                OwnerBookingStats stats = owners.getIfPresent(event.getOwnerId());
+                if (stats != null) {
+                    apply(event.getOwnerId(), stats, event);
+                }
+            }
+        }, () -> inFlight.decrementAndGet(stripe));
+    }
+
+    @EventListener
+    public void onBookingsRemoved(BookingsRemovedEvent event) {
+        if (event.getOwnerId() == null) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                begin(stripe);
+            }
+            afterCompletion(owners::invalidateAll, () -> {
+                for (int stripe = 0; stripe < STRIPES; stripe++) {
+                    inFlight.decrementAndGet(stripe);
+                }
+            });
+        } else {
+            invalidate(List.of(event.getOwnerId()));
+        }
+    }
+
+    @EventListener
+    public void onBookingsMoved(BookingsMovedEvent event) {
+        invalidate(List.of(event.getPreviousOwnerId(), event.getOwnerId()));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.stats.roll-interval-ms}")
+    public void rollForward() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Transition> due = new ArrayList<>();
+        synchronized (transitions) {
+            while (!transitions.isEmpty() && !transitions.first().at.isAfter(now)) {
+                Transition transition = transitions.pollFirst();
+                Set<Transition> scheduled = transitionsByOwner.get(transition.ownerId);
+                scheduled.remove(transition);
+                if (scheduled.isEmpty()) {
+                    transitionsByOwner.remove(transition.ownerId);
+                }
+                due.add(transition);
+            }
+        }
+        for (Transition transition : due) {
+            transition.stats.move(transition.from, transition.to);
+        }
+    }
+
+    private OwnerBookingStats seed(Long ownerId) {
+        int stripe = stripe(ownerId);
+        OwnerBookingStats stats = null;
+        for (int attempt = 0; attempt < SEED_ATTEMPTS; attempt++) {
+            long version = versions.get(stripe);
+            boolean quiet = inFlight.get(stripe) == 0;
+            List<Transition> pending = new ArrayList<>();
+            stats = load(ownerId, pending);
+            if (!quiet) {
+                continue;
+            }
+            synchronized (locks[stripe]) {
+                if (versions.get(stripe) == version) {
+                    OwnerBookingStats installed = owners.asMap().putIfAbsent(ownerId, stats);
+                    if (installed != null) {
+                        return installed;
+                    }
+                    schedule(ownerId, stats, pending);
+                    return stats;
+                }
+            }
+        }
+        log.debug("booking stats for owner with id {} served without caching, bookings kept changing", ownerId);
+        return stats;
+    }
+
+    private OwnerBookingStats load(Long ownerId, List<Transition> pending) {
+        LocalDateTime now = LocalDateTime.now();
+        OwnerBookingStats stats = new OwnerBookingStats();
+        long all = 0;
+        for (StatusCount count : bookingRepository.countByOwnerGroupByStatus(ownerId)) {
+            stats.add(count.getStatus(), null, count.getCount());
+            all += count.getCount();
+        }
+        long unfinished = 0;
+        for (IntervalDto interval : bookingRepository.findUnfinishedIntervalsByOwner(ownerId, now)) {
+            stats.addTime(timeState(interval.getStart(), interval.getEnd(), now, ownerId, stats, pending), 1);
+            unfinished++;
+        }
+        stats.addTime(TimeState.PAST, all - unfinished);
+        return stats;
+    }
+
+    private void apply(Long ownerId, OwnerBookingStats stats, BookingChangedEvent event) {
+        if (event.getPreviousStatus() == null) {
+            List<Transition> pending = new ArrayList<>();
+            stats.add(event.getStatus(), timeState(event.getStart(), event.getEnd(), LocalDateTime.now(),
+                    ownerId, stats, pending), 1);
+            schedule(ownerId, stats, pending);
+        } else if (event.getPreviousStatus() != event.getStatus()) {
+            stats.changeStatus(event.getPreviousStatus(), event.getStatus());
+        }
+    }
+
+    private TimeState timeState(LocalDateTime start, LocalDateTime end, LocalDateTime now, Long ownerId,
+                                OwnerBookingStats stats, List<Transition> pending) {
+        if (!end.isAfter(now)) {
+            return TimeState.PAST;
+        }
+        pending.add(new Transition(end, TimeState.CURRENT, TimeState.PAST, ownerId, stats,
+                sequence.incrementAndGet()));
+        if (!start.isAfter(now)) {
+            return TimeState.CURRENT;
+        }
+        pending.add(new Transition(start, TimeState.FUTURE, TimeState.CURRENT, ownerId, stats,
+                sequence.incrementAndGet()));
+        return TimeState.FUTURE;
+    }
+
+    /**
+     * Queues the moves of {@code stats}, unless they are no longer the cached stats of the owner: an eviction
+     * that ran before they were queued has nothing to take back.
+     */
+    private void schedule(Long ownerId, OwnerBookingStats stats, List<Transition> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (transitions) {
+            transitions.addAll(pending);
+            transitionsByOwner.computeIfAbsent(ownerId, id -> new HashSet<>()).addAll(pending);
+        }
+        if (owners.getIfPresent(ownerId) != stats) {
+            unschedule(ownerId, stats);
+        }
+    }
+
+    private void unschedule(Long ownerId, OwnerBookingStats stats) {
+        synchronized (transitions) {
+            Set<Transition> scheduled = transitionsByOwner.get(ownerId);
+            if (scheduled == null) {
+                return;
+            }
+            scheduled.removeIf(transition -> transition.stats == stats && transitions.remove(transition));
+            if (scheduled.isEmpty()) {
+                transitionsByOwner.remove(ownerId);
+            }
+        }
+    }
+
+    private int scheduledTransitions() {
+        synchronized (transitions) {
+            return transitions.size();
+        }
+    }
+
+    private void invalidate(List<Long> ownerIds) {
+        int[] stripes = ownerIds.stream().mapToInt(this::stripe).toArray();
+        for (int stripe : stripes) {
+            begin(stripe);
+        }
+        afterCompletion(() -> owners.invalidateAll(ownerIds), () -> {
+            for (int stripe : stripes) {
+                inFlight.decrementAndGet(stripe);
+            }
+        });
+    }
+
+    private void begin(int stripe) {
+        inFlight.incrementAndGet(stripe);
+        versions.incrementAndGet(stripe);
+    }
+
+    private void afterCompletion(Runnable onCommit, Runnable finish) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                onCommit.run();
+            } finally {
+                finish.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.run();
+                    }
+                } finally {
+                    finish.run();
+                }
+            }
+        });
+    }
+
+    private int stripe(Long ownerId) {
+        return (int) Math.floorMod(ownerId, (long) STRIPES);
+    }
+
+    @AllArgsConstructor
+    private static class Transition {
+
+        private final LocalDateTime at;
+        private final TimeState from;
+        private final TimeState to;
+        private final Long ownerId;
+        private final OwnerBookingStats stats;
+        private final long seq;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.stats;
+
+enum TimeState {
+    FUTURE,
+    CURRENT,
+    PAST
+}
@@ -0,0 +1,187 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Committed booking changes pushed to the owners of the booked items as server-sent events.
+ * <p>
+ * Every event gets an id of the form {@code <epoch>-<seq>}, and the last {@code replay-size} events are kept,
+ * so a client reconnecting with {@code Last-Event-ID} gets what it missed. When that is no longer possible
+ * (the events were dropped, the id comes from before a restart, or they would not fit the subscriber buffer),
+ * the client gets a {@code reset} event instead and has to reload its listing. A subscription without
+ * {@code Last-Event-ID} starts with a {@code subscribed} event, so the client has an id to resume from.
+ * <p>
+ * Sequence, replay log and subscribers live in memory, and only changes committed by this instance reach them.
+ * The stream therefore assumes a single application instance: behind several, an owner would miss the bookings
+ * written through the other instances, and a reconnect landing on another instance would always get a
+ * {@code reset}. Routing the streams of an owner to one instance does not help with the first, as writes for
+ * an owner come from bookers through any instance.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class OwnerBookingStream {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final int bufferSize;
+    private final int replaySize;
+    private final long timeoutMs;
+    private final ExecutorService sender;
+    private final Map<Long, Set<StreamSubscriber>> subscribers = new HashMap<>();
+    private final Deque<StreamEvent> replay = new ArrayDeque<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter overflows;
+    private long seq;
+    private long droppedUpTo;
+
+    public OwnerBookingStream(MeterRegistry meterRegistry,
+                              @Value("${shareit.booking.stream.buffer-size}") int bufferSize,
+                              @Value("${shareit.booking.stream.replay-size}") int replaySize,
+                              @Value("${shareit.booking.stream.timeout-ms}") long timeoutMs,
+                              @Value("${shareit.booking.stream.sender-threads}") int senderThreads) {
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeoutMs = timeoutMs;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("booking-stream-");
+        threadFactory.setDaemon(true);
+        this.sender = Executors.newFixedThreadPool(senderThreads, threadFactory);
+        Gauge.builder("shareit.booking.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .register(meterRegistry);
+        this.overflows = Counter.builder("shareit.booking.stream.overflows")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long ownerId, String lastEventId) {
+        return subscribe(ownerId, lastEventId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(Long ownerId, String lastEventId, SseEmitter emitter) {
+        StreamSubscriber subscriber = new StreamSubscriber(ownerId, emitter, epoch, bufferSize, sender);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        synchronized (this) {
+            if (lastEventId != null) {
+                resume(subscriber, lastEventId);
+            } else {
+                subscriber.offer(new StreamEvent(seq, ownerId, StreamEvent.SUBSCRIBED, null));
+            }
+            subscribers.computeIfAbsent(ownerId, id -> new HashSet<>()).add(subscriber);
+            subscriberCount.incrementAndGet();
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingInItemResponseDto booking = new BookingInItemResponseDto();
+        booking.setId(event.getBookingId());
+        booking.setItemId(event.getItemId());
+        booking.setBookerId(event.getBookerId());
+        booking.setStart(event.getStart());
+        booking.setEnd(event.getEnd());
+        booking.setStatus(event.getStatus());
+        String name = event.getPreviousStatus() == null ? StreamEvent.CREATED : StreamEvent.STATUS_CHANGED;
+        List<StreamSubscriber> overflowed = new ArrayList<>();
+        synchronized (this) {
+            StreamEvent streamEvent = new StreamEvent(++seq, event.getOwnerId(), name, booking);
+            replay.addLast(streamEvent);
+            if (replay.size() > replaySize) {
+                droppedUpTo = replay.removeFirst().getSeq();
+            }
+            for (StreamSubscriber subscriber : subscribers.getOrDefault(event.getOwnerId(), Set.of())) {
+                if (!subscriber.offer(streamEvent)) {
+                    overflowed.add(subscriber);
+                }
+            }
+        }
+        for (StreamSubscriber subscriber : overflowed) {
+            overflows.increment();
+            log.debug("booking stream of owner with id {} fell behind and was closed", subscriber.getOwnerId());
+            subscriber.getEmitter().complete();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.heartbeat-ms}")
+    public void heartbeat() {
+        List<StreamSubscriber> all = new ArrayList<>();
+        synchronized (this) {
+            subscribers.values().forEach(all::addAll);
+        }
+        all.forEach(StreamSubscriber::heartbeat);
+    }
+
+    @PreDestroy
+    public void close() {
+        List<StreamSubscriber> all = new ArrayList<>();
+        synchronized (this) {
+            subscribers.values().forEach(all::addAll);
+        }
+        all.forEach(subscriber -> subscriber.getEmitter().complete());
+        sender.shutdown();
+    }
+
+    private void resume(StreamSubscriber subscriber, String lastEventId) {
+        long last = parseSeq(lastEventId);
+        if (last >= droppedUpTo && last <= seq) {
+            List<StreamEvent> missed = new ArrayList<>();
+            for (StreamEvent event : replay) {
+                if (event.getSeq() > last && event.getOwnerId().equals(subscriber.getOwnerId())) {
+                    missed.add(event);
+                }
+            }
+            if (missed.size() < subscriber.remainingCapacity()) {
+                missed.forEach(subscriber::offer);
+                return;
+            }
+        }
+        subscriber.offer(new StreamEvent(seq, subscriber.getOwnerId(), StreamEvent.RESET, null));
+    }
+
+    private long parseSeq(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private synchronized void unsubscribe(StreamSubscriber subscriber) {
+        Set<StreamSubscriber> owned = subscribers.get(subscriber.getOwnerId());
+        if (owned != null && owned.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            if (owned.isEmpty()) {
+                subscribers.remove(subscriber.getOwnerId());
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.stream;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
+
+/**
+ * One entry of the owner booking stream. Kept as data rather than as a built SSE event, because an event
+ * builder cannot be sent more than once and the same entry goes to every subscriber of the owner.
+ */
+@Getter
+@AllArgsConstructor
+class StreamEvent {
+
+    static final String CREATED = "created";
+    static final String STATUS_CHANGED = "status-changed";
+    static final String SUBSCRIBED = "subscribed";
+    static final String RESET = "reset";
+
+    private final long seq;
+    private final Long ownerId;
+    private final String name;
+    private final BookingInItemResponseDto booking;
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking.stream;
+
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An open stream of one owner. Events are queued without blocking the publisher and written by one sender
+ * task at a time; a subscriber too slow to keep its queue below {@code bufferSize} is disconnected.
+ */
+class StreamSubscriber {
+
+    private static final StreamEvent HEARTBEAT = new StreamEvent(0, null, null, null);
+
+    @Getter
+    private final Long ownerId;
+    @Getter
+    private final SseEmitter emitter;
+    private final String epoch;
+    private final BlockingQueue<StreamEvent> buffer;
+    private final Executor sender;
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    StreamSubscriber(Long ownerId, SseEmitter emitter, String epoch, int bufferSize, Executor sender) {
+        this.ownerId = ownerId;
+        this.emitter = emitter;
+        this.epoch = epoch;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.sender = sender;
+    }
+
+    boolean offer(StreamEvent event) {
+        if (!buffer.offer(event)) {
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * A heartbeat is skipped rather than counted as an overflow: a full queue already has something to send.
+     */
+    void heartbeat() {
+        if (buffer.isEmpty() && buffer.offer(HEARTBEAT)) {
+            schedule();
+        }
+    }
+
+    int remainingCapacity() {
+        return buffer.remainingCapacity();
+    }
+
+    private void schedule() {
+        if (sending.compareAndSet(false, true)) {
+            sender.execute(this::send);
+        }
+    }
+
+    private void send() {
+        try {
+            StreamEvent event;
+            while ((event = buffer.poll()) != null) {
+                emitter.send(toSse(event));
+            }
+        } catch (IOException | IllegalStateException e) {
+            buffer.clear();
+            emitter.completeWithError(e);
+            return;
+        } finally {
+            sending.set(false);
+        }
+        if (!buffer.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSse(StreamEvent event) {
+        if (event == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        SseEmitter.SseEventBuilder sse = SseEmitter.event()
+                .id(epoch + "-" + event.getSeq())
+                .name(event.getName());
+        return event.getBooking() != null ? sse.data(event.getBooking(), MediaType.APPLICATION_JSON) : sse.data("");
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.bulk.dto.ImportReportDto;
+import ru.practicum.shareit.bulkhead.BulkheadGroup;
+import ru.practicum.shareit.bulkhead.Bulkheaded;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/import")
+public class BulkImportController {
+
+    private final BulkImportService bulkImportService;
+
+    @PostMapping(path = "/users", consumes = {ImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Bulkheaded(BulkheadGroup.IMPORT)
+    public ResponseEntity<ImportReportDto> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                       InputStream body) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importUsers(body, ImportFormat.of(contentType)));
+    }
+
+    @PostMapping(path = "/items", consumes = {ImportFormat.TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Bulkheaded(BulkheadGroup.IMPORT)
+    public ResponseEntity<ImportReportDto> importItems(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                       @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                       InputStream body) throws IOException {
+        return ResponseEntity.ok(bulkImportService.importItems(body, ImportFormat.of(contentType), userId));
+    }
+}
@@ -0,0 +1,209 @@
+package ru.practicum.shareit.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.bulk.dto.ImportReportDto;
+import ru.practicum.shareit.bulk.dto.ImportRowErrorDto;
+import ru.practicum.shareit.exceptions.EntityNotFoundException;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.event.OwnerItemsChangedEvent;
+import ru.practicum.shareit.sharding.Sharded;
+import ru.practicum.shareit.sharding.UserReplicator;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BulkImportService {
+
+    private static final String INSERT_USER = "insert into users (name, email) values (?, ?)";
+    private static final String INSERT_ITEM = "insert into items (name, description, is_available, owner_id) " +
+            "values (?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final UserReplicator userReplicator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${shareit.import.batch-size}")
+    private int batchSize;
+    @Value("${shareit.import.max-errors}")
+    private int maxErrors;
+
+    /**
+     * Every batch commits before the next one is read, so emails of earlier batches are found by the database
+     * check and only duplicates within a batch have to be tracked in memory.
+     */
+    public ImportReportDto importUsers(InputStream body, ImportFormat format) throws IOException {
+        ImportReportDto report = new ImportReportDto();
+        readRows(body, format, UserDto.class, report, batch -> saveUsers(batch, report));
+        log.info("{} of {} users imported", report.getImported(), report.getTotal());
+        return report;
+    }
+
+    @Sharded("#ownerId")
+    public ImportReportDto importItems(InputStream body, ImportFormat format, Long ownerId) throws IOException {
+        if (!userRepository.existsById(ownerId)) {
+            throw new EntityNotFoundException(String.format("there is no user with id %d for imported items", ownerId));
+        }
+        ImportReportDto report = new ImportReportDto();
+        readRows(body, format, ItemRequestDto.class, report, batch -> insertBatch(INSERT_ITEM, batch, (ps, dto) -> {
+            ps.setString(1, dto.getName());
+            ps.setString(2, dto.getDescription());
+            ps.setBoolean(3, dto.getAvailable());
+            ps.setLong(4, ownerId);
+        }, report));
+        if (report.getImported() > 0) {
+            eventPublisher.publishEvent(new OwnerItemsChangedEvent(ownerId));
+        }
+        log.info("{} of {} items imported for user with id {}", report.getImported(), report.getTotal(), ownerId);
+        return report;
+    }
+
+    private void saveUsers(List<ImportRow<UserDto>> batch, ImportReportDto report) {
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(batch
+                .stream()
+                .map(row -> row.getValue().getEmail())
+                .collect(Collectors.toSet())));
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow<UserDto>> accepted = new ArrayList<>(batch.size());
+        for (ImportRow<UserDto> row : batch) {
+            String email = row.getValue().getEmail();
+            if (existing.contains(email) || !seenEmails.add(email)) {
+                addError(report, row.getNumber(), String.format("user with email %s already exists", email));
+            } else {
+                accepted.add(row);
+            }
+        }
+        long imported = report.getImported();
+        insertBatch(INSERT_USER, accepted, (ps, dto) -> {
+            ps.setString(1, dto.getName());
+            ps.setString(2, dto.getEmail());
+        }, report);
+        if (userReplicator.isActive() && report.getImported() > imported) {
+            userReplicator.replicateAfterCommit(userRepository.findIdsByEmails(accepted
+                    .stream()
+                    .map(row -> row.getValue().getEmail())
+                    .collect(Collectors.toList())));
+        }
+    }
+
+    private <T> void readRows(InputStream body, ImportFormat format, Class<T> type, ImportReportDto report,
+                              Consumer<List<ImportRow<T>>> flush) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ImportRowParser parser;
+        if (format == ImportFormat.CSV) {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            parser = new CsvRowParser(header, objectMapper);
+        } else {
+            parser = objectMapper::readTree;
+        }
+        List<ImportRow<T>> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            long number = report.getTotal() + 1;
+            report.setTotal(number);
+            T value;
+            try {
+                JsonNode node = parser.parse(line);
+                if (!node.isObject()) {
+                    throw new IOException("row has to be an object");
+                }
+                value = objectMapper.treeToValue(node, type);
+            } catch (IOException e) {
+                addError(report, number, String.format("cannot parse row: %s", e.getMessage()));
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(value);
+            if (!violations.isEmpty()) {
+                addError(report, number, violations
+                        .stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            batch.add(new ImportRow<>(number, value));
+            if (batch.size() == batchSize) {
+                flush.accept(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush.accept(batch);
+        }
+        report.getErrors().sort(Comparator.comparingLong(ImportRowErrorDto::getRow));
+    }
+
+    /**
+     * A batch the database rejects is split in halves that are inserted on their own, down to single rows, so
+     * only the rows at fault are reported and the rest still land.
+     */
+    private <T> void insertBatch(String sql, List<ImportRow<T>> rows, ParameterizedPreparedStatementSetter<T> setter,
+                                 ImportReportDto report) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<T> values = rows
+                .stream()
+                .map(ImportRow::getValue)
+                .collect(Collectors.toList());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(sql, values, values.size(), setter));
+            report.setImported(report.getImported() + rows.size());
+        } catch (DataAccessException e) {
+            if (rows.size() > 1) {
+                log.debug("import batch of {} rows rejected by database, splitting it", rows.size());
+                int half = rows.size() / 2;
+                insertBatch(sql, rows.subList(0, half), setter, report);
+                insertBatch(sql, rows.subList(half, rows.size()), setter, report);
+                return;
+            }
+            log.warn("import row {} rejected by database: {}", rows.get(0).getNumber(),
+                    e.getMostSpecificCause().getMessage());
+            addError(report, rows.get(0).getNumber(), String.format("rejected by database: %s",
+                    e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    /**
+     * Counts every failed row, but only the first {@code max-errors} are described in the report.
+     */
+    private void addError(ImportReportDto report, long row, String error) {
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportRowErrorDto(row, error));
+        }
+        report.setFailed(report.getFailed() + 1);
+    }
+}
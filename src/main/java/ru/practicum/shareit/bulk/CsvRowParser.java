@@ -0,0 +1,69 @@
+package ru.practicum.shareit.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-line CSV records with a header row. Quoted values may contain commas and doubled quotes.
+ */
+class CsvRowParser implements ImportRowParser {
+
+    private final List<String> columns;
+    private final ObjectMapper objectMapper;
+
+    CsvRowParser(String header, ObjectMapper objectMapper) throws IOException {
+        this.columns = split(header);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public JsonNode parse(String line) throws IOException {
+        List<String> values = split(line);
+        if (values.size() != columns.size()) {
+            throw new IOException(String.format("expected %d columns but found %d", columns.size(), values.size()));
+        }
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                node.put(columns.get(i), values.get(i));
+            }
+        }
+        return node;
+    }
+
+    private static List<String> split(String line) throws IOException {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("unterminated quoted value");
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.bulk;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static ImportFormat of(MediaType contentType) {
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.bulk;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+class ImportRow<T> {
+
+    private final long number;
+    private final T value;
+}
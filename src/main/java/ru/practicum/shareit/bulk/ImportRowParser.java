@@ -0,0 +1,13 @@
+package ru.practicum.shareit.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+/**
+ * Turns one line of an upload into a JSON tree, so that both formats are bound to DTOs the same way.
+ */
+interface ImportRowParser {
+
+    JsonNode parse(String line) throws IOException;
+}
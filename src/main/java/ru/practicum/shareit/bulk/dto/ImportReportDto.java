@@ -0,0 +1,15 @@
+package ru.practicum.shareit.bulk.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReportDto {
+
+    private long total;
+    private long imported;
+    private long failed;
+    private List<ImportRowErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.bulk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportRowErrorDto {
+
+    private long row;
+    private String error;
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.practicum.shareit.exceptions.BulkheadFullException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fair semaphore with a bounded number of waiters. Requests beyond {@code maxConcurrent + maxQueue},
+ * or queued longer than {@code maxWait}, fail with {@link BulkheadFullException}.
+ * <p>
+ * A queued request parks the servlet thread that carries it, so {@code maxConcurrent + maxQueue} of all
+ * groups together has to stay below the server's thread pool, or a saturated group starves the others of
+ * threads before its own bulkhead rejects anything.
+ */
+class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejections;
+
+    Bulkhead(BulkheadGroup group, BulkheadProperties.Limits limits, MeterRegistry meterRegistry) {
+        this.name = group.name().toLowerCase();
+        this.maxConcurrent = limits.getMaxConcurrent();
+        this.maxQueue = limits.getMaxQueue();
+        this.maxWaitNanos = limits.getMaxWait().toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+        Gauge.builder("shareit.bulkhead.active", this, b -> b.maxConcurrent - b.permits.availablePermits())
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("shareit.bulkhead.queue.depth", waiting, AtomicInteger::get)
+                .tag("group", name)
+                .register(meterRegistry);
+        this.rejections = Counter.builder("shareit.bulkhead.rejections")
+                .tag("group", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a free permit right away only while nobody is queued for one: the untimed {@code tryAcquire}
+     * would barge ahead of the waiters even on a fair semaphore, the timed one keeps their order.
+     */
+    void acquire() {
+        try {
+            if (waiting.get() == 0 && permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            throw reject();
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                throw reject();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject();
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    private BulkheadFullException reject() {
+        rejections.increment();
+        return new BulkheadFullException(String.format("too many %s requests, try again later", name));
+    }
+}
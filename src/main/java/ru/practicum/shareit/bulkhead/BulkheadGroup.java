@@ -0,0 +1,8 @@
+package ru.practicum.shareit.bulkhead;
+
+public enum BulkheadGroup {
+    SEARCH,
+    LISTING,
+    WRITE,
+    IMPORT
+}
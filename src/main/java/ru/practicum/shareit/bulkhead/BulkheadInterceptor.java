@@ -0,0 +1,50 @@
+package ru.practicum.shareit.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.EnumMap;
+import java.util.Map;
+
+class BulkheadInterceptor implements HandlerInterceptor {
+
+    private static final String ACQUIRED_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".acquired";
+
+    private final Map<BulkheadGroup, Bulkhead> bulkheads = new EnumMap<>(BulkheadGroup.class);
+
+    BulkheadInterceptor(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        for (BulkheadGroup group : BulkheadGroup.values()) {
+            BulkheadProperties.Limits limits = properties.getGroups()
+                    .getOrDefault(group, new BulkheadProperties.Limits());
+            bulkheads.put(group, new Bulkhead(group, limits, meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Bulkheaded bulkheaded = ((HandlerMethod) handler).getMethodAnnotation(Bulkheaded.class);
+        if (bulkheaded == null) {
+            return true;
+        }
+        Bulkhead bulkhead = bulkheads.get(bulkheaded.value());
+        bulkhead.acquire();
+        request.setAttribute(ACQUIRED_ATTRIBUTE, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object bulkhead = request.getAttribute(ACQUIRED_ATTRIBUTE);
+        if (bulkhead != null) {
+            request.removeAttribute(ACQUIRED_ATTRIBUTE);
+            ((Bulkhead) bulkhead).release();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.bulkhead;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit.bulkhead")
+public class BulkheadProperties {
+
+    private Map<BulkheadGroup, Limits> groups = new EnumMap<>(BulkheadGroup.class);
+
+    @Getter
+    @Setter
+    public static class Limits {
+
+        /**
+         * Requests of the group that may run at the same time.
+         */
+        private int maxConcurrent = 32;
+        /**
+         * Requests that may wait for a free slot; the next one is rejected right away. Each of them holds
+         * a server thread while it waits.
+         */
+        private int maxQueue = 8;
+        /**
+         * How long a queued request waits for a slot before it is rejected.
+         */
+        private Duration maxWait = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the handler method inside the bulkhead of the given group.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkheaded {
+
+    BulkheadGroup value();
+}
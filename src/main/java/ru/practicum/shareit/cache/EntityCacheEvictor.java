@@ -0,0 +1,28 @@
+package ru.practicum.shareit.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+
+@Component
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * A soft delete updates the entity, so the marked state lands in the second-level cache on commit.
+     * Cache hits skip the @Where filter, which is why the entry is dropped right after that.
+     */
+    public void evictAfterCommit(Class<?> type, Object id) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(type, id);
+            }
+        });
+    }
+}
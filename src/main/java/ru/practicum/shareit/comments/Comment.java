@@ -1,8 +1,10 @@
 package ru.practicum.shareit.comments;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Where;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -16,6 +18,7 @@ import java.util.Objects;
 @Setter
 @ToString
 @Table(name = "comments")
+@Where(clause = "deleted_at is null")
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,6 +34,9 @@ public class Comment {
     private Item item;
     @Column(name = "created")
     private LocalDateTime created;
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
 
     @Override
     public boolean equals(Object o) {
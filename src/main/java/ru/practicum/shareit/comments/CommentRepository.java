@@ -1,13 +1,53 @@
 package ru.practicum.shareit.comments;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     @Query("select c from Comment c where c.item.id = ?1")
     List<Comment> findAllByItem_Id(Long itemId);
+
+    @Query("select c from Comment c join fetch c.author where c.item.id in ?1")
+    List<Comment> findAllByItemIds(Collection<Long> itemIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "comments"))
+    @Query(value = "delete from comments where item_id = ?1", nativeQuery = true)
+    void deleteAllByItemId(Long itemId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "comments"))
+    @Query(value = "delete from comments where author_id = ?1 " +
+            "or item_id in (select i.id from items i where i.owner_id = ?1)", nativeQuery = true)
+    void deleteAllByUserId(Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "comments"))
+    @Query(value = "update comments set deleted_at = ?2 where item_id = ?1 and deleted_at is null", nativeQuery = true)
+    void markDeletedByItemId(Long itemId, LocalDateTime deletedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "comments"))
+    @Query(value = "update comments set deleted_at = ?2 where deleted_at is null and (author_id = ?1 " +
+            "or item_id in (select i.id from items i where i.owner_id = ?1))", nativeQuery = true)
+    void markDeletedByUserId(Long userId, LocalDateTime deletedAt);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "comments"))
+    @Query(value = "delete from comments where id in " +
+            "(select c.id from comments c where c.deleted_at < ?1 limit ?2)", nativeQuery = true)
+    int purgeDeleted(LocalDateTime deletedBefore, int limit);
 }
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.deletion;
+
+/**
+ * How users and items are removed: HARD deletes the rows with their bookings and comments right away,
+ * SOFT only marks them with deleted_at and leaves the removal to {@link SoftDeletePurgeJob}.
+ */
+public enum DeleteMode {
+    HARD,
+    SOFT
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.deletion;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.comments.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.sharding.ShardRouter;
+import ru.practicum.shareit.user.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.function.BiFunction;
+
+@Component
+@Lazy(false)
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.delete.mode", havingValue = "SOFT")
+public class SoftDeletePurgeJob {
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final CommentRepository commentRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ShardRouter shardRouter;
+
+    @Value("${shareit.delete.retention-days}")
+    private long retentionDays;
+    @Value("${shareit.delete.purge-batch-size}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${shareit.delete.purge-interval-ms}",
+            initialDelayString = "${shareit.delete.purge-interval-ms}")
+    public void purge() {
+        shardRouter.forEachShard(this::purgeShard);
+    }
+
+    private void purgeShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        long bookings = purge(cutoff, bookingRepository::purgeDeleted)
+                + purge(cutoff, archivedBookingRepository::purgeDeleted);
+        long comments = purge(cutoff, commentRepository::purgeDeleted);
+        long items = purge(cutoff, itemRepository::purgeDeleted);
+        long users = purge(cutoff, userRepository::purgeDeleted);
+        log.info("purged soft-deleted rows: {} bookings, {} comments, {} items, {} users",
+                bookings, comments, items, users);
+    }
+
+    private long purge(LocalDateTime cutoff, BiFunction<LocalDateTime, Integer, Integer> chunk) {
+        long total = 0;
+        int purged;
+        do {
+            purged = chunk.apply(cutoff, batchSize);
+            total += purged;
+        } while (purged == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class BulkheadFullException extends RuntimeException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
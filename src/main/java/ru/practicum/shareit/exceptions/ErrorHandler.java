@@ -58,4 +58,52 @@ public class ErrorHandler {
     public Map<String, String> commentConsistencyException(CommentConsistencyException e) {
         return Collections.singletonMap("error", e.getMessage());
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> tooManyIdsHandler(TooManyIdsException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> invalidPageHandler(InvalidPageException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> incompleteWindowHandler(IncompleteWindowException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> bulkheadFullHandler(BulkheadFullException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> idempotencyKeyConflictHandler(IdempotencyKeyConflictException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public Map<String, String> idempotencyKeyMismatchHandler(IdempotencyKeyMismatchException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public Map<String, String> preconditionFailedHandler(PreconditionFailedException e) {
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> concurrentUpdateHandler(ConcurrentUpdateException e) {
+        return Map.of("error", e.getMessage());
+    }
 }
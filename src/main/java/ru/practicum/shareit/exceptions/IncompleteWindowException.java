@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class IncompleteWindowException extends RuntimeException {
+    public IncompleteWindowException(String message) {
+        super(message);
+    }
+}
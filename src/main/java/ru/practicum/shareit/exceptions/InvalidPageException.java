@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class InvalidPageException extends RuntimeException {
+    public InvalidPageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.practicum.shareit.idempotency;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.exceptions.IdempotencyKeyConflictException;
+import ru.practicum.shareit.exceptions.IdempotencyKeyMismatchException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Replays the stored response for a create request repeated with the same {@code Idempotency-Key} header.
+ * Keys are scoped by user and path; reusing a key with a different body is rejected. The status, content type,
+ * {@code ETag} and body are replayed; bodies that are not text, such as CBOR or Smile, are stored
+ * Base64-encoded.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyStore store;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final Set<String> paths;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                             @Value("${shareit.idempotency.paths}") Set<String> paths) {
+        this.store = store;
+        this.exceptionResolver = exceptionResolver;
+        this.paths = paths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String key = DigestUtils.md5DigestAsHex(String.join(" ", request.getHeader("X-Sharer-User-Id"),
+                request.getRequestURI(), request.getHeader(HEADER)).getBytes(StandardCharsets.UTF_8));
+        String fingerprint = DigestUtils.md5DigestAsHex(body);
+        StoredResponse stored;
+        try {
+            stored = store.acquire(key, fingerprint);
+        } catch (IdempotencyKeyConflictException | IdempotencyKeyMismatchException e) {
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+        if (stored != null) {
+            replay(stored, response);
+            return;
+        }
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), captured);
+        } catch (IOException | ServletException | RuntimeException e) {
+            store.abandon(key);
+            throw e;
+        }
+        store.complete(key, new StoredResponse(fingerprint, captured.getStatus(), captured.getContentType(),
+                captured.getHeader(HttpHeaders.ETAG), encode(captured.getContentType(),
+                captured.getContentAsByteArray())));
+        captured.copyBodyToResponse();
+    }
+
+    private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        if (stored.getEtag() != null) {
+            response.setHeader(HttpHeaders.ETAG, stored.getEtag());
+        }
+        if (stored.getBody() != null) {
+            byte[] body = decode(stored.getContentType(), stored.getBody());
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private static String encode(String contentType, byte[] body) {
+        return isText(contentType)
+                ? new String(body, StandardCharsets.UTF_8)
+                : Base64.getEncoder().encodeToString(body);
+    }
+
+    private static byte[] decode(String contentType, String body) {
+        return isText(contentType)
+                ? body.getBytes(StandardCharsets.UTF_8)
+                : Base64.getDecoder().decode(body);
+    }
+
+    private static boolean isText(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        MediaType type = MediaType.parseMediaType(contentType);
+        return "text".equals(type.getType())
+                || MediaType.APPLICATION_JSON.isCompatibleWith(type)
+                || "json".equals(type.getSubtypeSuffix());
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body is already in memory, so it is all available, and all read, right away.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
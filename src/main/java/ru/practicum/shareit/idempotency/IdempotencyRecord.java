@@ -0,0 +1,53 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.Hibernate;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Response stored for an {@code Idempotency-Key}. A row without a status belongs to a request still running.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@RequiredArgsConstructor
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created", columnList = "created_at")
+})
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "id", length = 32)
+    private String id;
+    @Column(name = "fingerprint", nullable = false, length = 32)
+    private String fingerprint;
+    @Column(name = "status")
+    private Integer status;
+    @Column(name = "content_type")
+    private String contentType;
+    @Column(name = "etag")
+    private String etag;
+    @Column(name = "body", columnDefinition = "text")
+    private String body;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        IdempotencyRecord record = (IdempotencyRecord) o;
+        return id != null && Objects.equals(id, record.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
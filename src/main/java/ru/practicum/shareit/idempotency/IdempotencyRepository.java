@@ -0,0 +1,53 @@
+package ru.practicum.shareit.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Plain insert rather than {@code save}, which would merge: a key taken by another instance has to fail
+     * on the primary key.
+     */
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "insert into idempotency_keys (id, fingerprint, created_at) values (?1, ?2, ?3)",
+            nativeQuery = true)
+    void insertInProgress(String id, String fingerprint, LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "update idempotency_keys set status = ?2, content_type = ?3, etag = ?4, body = ?5 " +
+            "where id = ?1", nativeQuery = true)
+    void complete(String id, int status, String contentType, String etag, String body);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "delete from idempotency_keys where id = ?1 and status is null", nativeQuery = true)
+    void deleteInProgress(String id);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "delete from idempotency_keys where id = ?1 and created_at < ?2", nativeQuery = true)
+    void deleteExpired(String id, LocalDateTime createdBefore);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "delete from idempotency_keys where id in " +
+            "(select k.id from idempotency_keys k where k.created_at < ?1 limit ?2)", nativeQuery = true)
+    int purgeExpired(LocalDateTime createdBefore, int limit);
+}
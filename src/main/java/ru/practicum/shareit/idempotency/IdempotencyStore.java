@@ -0,0 +1,198 @@
+package ru.practicum.shareit.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exceptions.IdempotencyKeyConflictException;
+import ru.practicum.shareit.exceptions.IdempotencyKeyMismatchException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Responses by idempotency key. Completed responses are cached in memory, bounded by {@code max-entries},
+ * and persisted in {@code idempotency_keys} for {@code ttl-ms}.
+ * <p>
+ * The first request with a key claims it: locally by registering a future that duplicates in this instance
+ * wait for, and across instances by inserting an in-progress row, so a duplicate on another instance gets
+ * a conflict instead of running too. An in-progress row older than {@code in-progress-timeout-ms} is taken
+ * to belong to a request that died with its instance, and can be claimed again.
+ */
+@Component
+@Lazy(false)
+@Slf4j
+public class IdempotencyStore {
+
+    private final IdempotencyRepository repository;
+    private final Cache<String, StoredResponse> completed;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final long waitMs;
+    private final int purgeBatchSize;
+
+    public IdempotencyStore(IdempotencyRepository repository, MeterRegistry meterRegistry,
+                            @Value("${shareit.idempotency.max-entries}") long maxEntries,
+                            @Value("${shareit.idempotency.ttl-ms}") long ttlMs,
+                            @Value("${shareit.idempotency.in-progress-timeout-ms}") long inProgressTimeoutMs,
+                            @Value("${shareit.idempotency.wait-ms}") long waitMs,
+                            @Value("${shareit.idempotency.purge-batch-size}") int purgeBatchSize) {
+        this.repository = repository;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.inProgressTimeout = Duration.ofMillis(inProgressTimeoutMs);
+        this.waitMs = waitMs;
+        this.purgeBatchSize = purgeBatchSize;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+    }
+
+    /**
+     * Returns the response to replay, or null when the caller has claimed the key and has to run the request,
+     * then report it with {@link #complete} or {@link #abandon}.
+     */
+    StoredResponse acquire(String key, String fingerprint) {
+        StoredResponse stored = completed.getIfPresent(key);
+        if (stored != null) {
+            return checked(stored, fingerprint);
+        }
+        CompletableFuture<StoredResponse> claim = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, claim);
+        if (running != null) {
+            return checked(await(running), fingerprint);
+        }
+        try {
+            stored = completed.getIfPresent(key);
+            if (stored == null) {
+                stored = load(key);
+            }
+            if (stored != null) {
+                inFlight.remove(key, claim);
+                claim.complete(stored);
+                return checked(stored, fingerprint);
+            }
+            repository.insertInProgress(key, fingerprint, LocalDateTime.now());
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            throw fail(key, claim, inProgress());
+        } catch (RuntimeException e) {
+            throw fail(key, claim, e);
+        }
+    }
+
+    /**
+     * Server errors are handed to the duplicates already waiting, but not stored: a later retry runs again.
+     */
+    void complete(String key, StoredResponse response) {
+        if (response.getStatus() >= 500) {
+            repository.deleteInProgress(key);
+        } else {
+            repository.complete(key, response.getStatus(), response.getContentType(), response.getEtag(),
+                    response.getBody());
+            completed.put(key, response);
+        }
+        CompletableFuture<StoredResponse> claim = inFlight.remove(key);
+        if (claim != null) {
+            claim.complete(response);
+        }
+    }
+
+    void abandon(String key) {
+        try {
+            repository.deleteInProgress(key);
+        } finally {
+            CompletableFuture<StoredResponse> claim = inFlight.remove(key);
+            if (claim != null) {
+                claim.completeExceptionally(inProgress());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.idempotency.purge-interval-ms}",
+            initialDelayString = "${shareit.idempotency.purge-interval-ms}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        long total = 0;
+        int purged;
+        do {
+            purged = repository.purgeExpired(cutoff, purgeBatchSize);
+            total += purged;
+        } while (purged == purgeBatchSize);
+        log.info("purged {} expired idempotency keys", total);
+    }
+
+    private StoredResponse load(String key) {
+        IdempotencyRecord record = repository.findById(key).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (record.getCreatedAt().isBefore(now.minus(ttl))) {
+            repository.deleteExpired(key, now.minus(ttl));
+            return null;
+        }
+        if (record.getStatus() == null) {
+            if (record.getCreatedAt().isBefore(now.minus(inProgressTimeout))) {
+                log.warn("idempotency key {} was left in progress since {}, claiming it again", key,
+                        record.getCreatedAt());
+                repository.deleteInProgress(key);
+                return null;
+            }
+            throw inProgress();
+        }
+        StoredResponse stored = new StoredResponse(record.getFingerprint(), record.getStatus(),
+                record.getContentType(), record.getEtag(), record.getBody());
+        completed.put(key, stored);
+        return stored;
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw inProgress();
+        } catch (TimeoutException e) {
+            throw inProgress();
+        }
+    }
+
+    private StoredResponse checked(StoredResponse stored, String fingerprint) {
+        if (!stored.getFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException("idempotency key was already used for a different request");
+        }
+        return stored;
+    }
+
+    private RuntimeException fail(String key, CompletableFuture<StoredResponse> claim, RuntimeException e) {
+        inFlight.remove(key, claim);
+        claim.completeExceptionally(e);
+        return e;
+    }
+
+    private IdempotencyKeyConflictException inProgress() {
+        return new IdempotencyKeyConflictException("request with this idempotency key is still in progress, " +
+                "try again later");
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+class StoredResponse {
+
+    private final String fingerprint;
+    private final int status;
+    private final String contentType;
+    private final String etag;
+    private final String body;
+}
@@ -1,15 +1,24 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.bulkhead.BulkheadGroup;
+import ru.practicum.shareit.bulkhead.Bulkheaded;
 import ru.practicum.shareit.comments.dto.CommentRequestDto;
 import ru.practicum.shareit.comments.dto.CommentResponseDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.paging.Paging;
+import ru.practicum.shareit.versioning.OptimisticUpdates;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,45 +30,93 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final Paging paging;
 
     @PostMapping
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<ItemResponseDto> addItem(@Valid @RequestBody ItemRequestDto dto,
                                                    @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
-        return ResponseEntity.ok(itemService.addItem(dto, userId));
+        return versioned(itemService.addItem(dto, userId));
     }
 
     @PatchMapping("/{itemId}")
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<ItemResponseDto> updateItem(@RequestBody ItemRequestDto dto,
                                                       @RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
-                                                      @PathVariable Long itemId) {
-        return ResponseEntity.ok(itemService.updateItem(dto, userId, itemId));
+                                                      @PathVariable Long itemId,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
+        return versioned(itemService.updateItem(dto, userId, itemId, OptimisticUpdates.expectedVersion(ifMatch)));
     }
 
     @GetMapping("/{itemId}")
     public ResponseEntity<ItemResponseDto> getItem(@RequestHeader("X-Sharer-User-Id") @NotNull Long ownerId,
                                                    @PathVariable Long itemId) {
-        return ResponseEntity.ok(itemService.getItem(ownerId, itemId));
+        return versioned(itemService.getItem(ownerId, itemId));
+    }
+
+    @GetMapping("/{itemId}/availability")
+    @Bulkheaded(BulkheadGroup.LISTING)
+    public ResponseEntity<ItemAvailabilityDto> getAvailability(@PathVariable Long itemId,
+                                                               @RequestParam(required = false)
+                                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                               LocalDateTime from,
+                                                               @RequestParam(required = false)
+                                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                               LocalDateTime to) {
+        return ResponseEntity.ok(itemService.getAvailability(itemId, from, to));
     }
 
     @GetMapping
-    public ResponseEntity<List<ItemResponseDto>> getItems(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
-        return ResponseEntity.ok(itemService.getItems(userId));
+    @Bulkheaded(BulkheadGroup.LISTING)
+    public ResponseEntity<List<ItemResponseDto>> getItems(@RequestHeader("X-Sharer-User-Id") @NotNull Long userId,
+                                                          @RequestParam(required = false) Integer from,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestParam(required = false) Long after) {
+        ListingPage page = paging.of(from, size, after);
+        List<ItemResponseDto> items = itemService.getItems(userId, page);
+        return ResponseEntity.ok().headers(paging.nextLink(items, page, ItemResponseDto::getId)).body(items);
+    }
+
+    @GetMapping(params = "ids")
+    @Bulkheaded(BulkheadGroup.LISTING)
+    public ResponseEntity<List<ItemResponseDto>> getItemsByIds(@RequestParam List<Long> ids,
+                                                               @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
+        return ResponseEntity.ok(itemService.getItemsByIds(ids, userId));
+    }
+
+    @GetMapping("/search/suggest")
+    public ResponseEntity<List<String>> suggest(@RequestParam(required = false) String prefix) {
+        return ResponseEntity.ok(itemService.suggestNames(prefix));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ItemResponseDto>> searchItem(@RequestParam(required = false) String text) {
-        return ResponseEntity.ok(itemService.searchItem(text));
+    @Bulkheaded(BulkheadGroup.SEARCH)
+    public ResponseEntity<List<ItemResponseDto>> searchItem(@RequestParam(required = false) String text,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                            LocalDateTime start,
+                                                            @RequestParam(required = false)
+                                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                            LocalDateTime end) {
+        return ResponseEntity.ok(itemService.searchItem(text, start, end));
     }
 
     @DeleteMapping("/{itemId}")
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<ItemResponseDto> deleteItem(@PathVariable Long itemId) {
         return ResponseEntity.ok(itemService.deleteItem(itemId));
     }
 
     @PostMapping("/{itemId}/comment")
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<CommentResponseDto> postComment(@Valid @RequestBody CommentRequestDto dto,
                                                           @PathVariable Long itemId,
                                                           @RequestHeader("X-Sharer-User-Id") @NotNull Long userId) {
         return ResponseEntity.ok(itemService.addComment(dto, itemId, userId));
     }
+
+    private ResponseEntity<ItemResponseDto> versioned(ItemResponseDto dto) {
+        return ResponseEntity.ok().eTag(String.valueOf(dto.getVersion())).body(dto);
+    }
 }
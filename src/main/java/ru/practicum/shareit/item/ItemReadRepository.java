@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+/**
+ * Read-only item queries for the listing endpoints. Rows go straight into response DTOs, so nothing is
+ * attached to the persistence context.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemReadRepository {
+
+    private static final RowMapper<ItemResponseDto> RESPONSE_MAPPER = (rs, rowNum) -> {
+        ItemResponseDto dto = new ItemResponseDto();
+        dto.setId(rs.getLong("id"));
+        dto.setName(rs.getString("name"));
+        dto.setDescription(rs.getString("description"));
+        dto.setAvailable(rs.getObject("is_available", Boolean.class));
+        User owner = new User(rs.getLong("owner_id"), rs.getString("owner_name"), rs.getString("owner_email"));
+        owner.setVersion(rs.getLong("owner_version"));
+        dto.setUser(owner);
+        dto.setVersion(rs.getLong("version"));
+        return dto;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<ItemResponseDto> findAllByOwner(Long ownerId) {
+        return jdbcTemplate.query("select i.id, i.name, i.description, i.is_available, i.version, " +
+                        "u.id as owner_id, u.name as owner_name, u.email as owner_email, u.version as owner_version " +
+                        "from items i join users u on u.id = i.owner_id " +
+                        "where i.owner_id = :ownerId and i.deleted_at is null order by i.id",
+                new MapSqlParameterSource("ownerId", ownerId), RESPONSE_MAPPER);
+    }
+
+    public List<ItemResponseDto> findPageByOwner(Long ownerId, ListingPage page) {
+        return jdbcTemplate.query("select i.id, i.name, i.description, i.is_available, i.version, " +
+                        "u.id as owner_id, u.name as owner_name, u.email as owner_email, u.version as owner_version " +
+                        "from items i join users u on u.id = i.owner_id " +
+                        "where i.owner_id = :ownerId and i.deleted_at is null and i.id > :after " +
+                        "order by i.id limit :size offset :from",
+                new MapSqlParameterSource("ownerId", ownerId)
+                        .addValue("after", page.getAfter())
+                        .addValue("size", page.getSize())
+                        .addValue("from", page.getFrom()), RESPONSE_MAPPER);
+    }
+}
@@ -1,12 +1,71 @@
 package ru.practicum.shareit.item;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.item.dto.ItemNameDto;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> findByIdForUpdate(Long id);
+
     List<Item> findAllByUser_Id(Long ownerId);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemNameDto(i.id, i.user.id, i.name) from Item i " +
+            "where i.available = true")
+    List<ItemNameDto> findAvailableNames();
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemNameDto(i.id, i.user.id, i.name) from Item i " +
+            "where i.available = true and i.user.id = ?1")
+    List<ItemNameDto> findAvailableNamesByOwner(Long ownerId);
+
+    @Query("select i from Item i where i.available = true " +
+            "and (lower(i.name) like concat('%', lower(?1), '%') escape '\\' " +
+            "or lower(i.description) like concat('%', lower(?1), '%') escape '\\') " +
+            "order by i.id")
+    List<Item> search(String text);
+
+    @Query("select i from Item i where i.available = true " +
+            "and (lower(i.name) like concat('%', lower(?1), '%') escape '\\' " +
+            "or lower(i.description) like concat('%', lower(?1), '%') escape '\\') " +
+            "and not exists (select b.id from Booking b where b.item = i " +
+            "and b.status in ?2 and b.end > ?3 and b.start < ?4) " +
+            "order by i.id")
+    List<Item> searchFreeBetween(String text, Collection<Status> statuses, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "public.items"))
+    @Query(value = "delete from items where owner_id = ?1", nativeQuery = true)
+    void deleteAllByOwnerId(Long ownerId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "public.items"))
+    @Query(value = "update items set deleted_at = ?2 where owner_id = ?1 and deleted_at is null", nativeQuery = true)
+    void markDeletedByOwnerId(Long ownerId, LocalDateTime deletedAt);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "public.items"))
+    @Query(value = "delete from items where id in (select i.id from items i where i.deleted_at < ?1 " +
+            "and not exists (select 1 from bookings b where b.item_id = i.id) " +
+            "and not exists (select 1 from bookings_archive a where a.item_id = i.id) " +
+            "and not exists (select 1 from comments c where c.item_id = i.id) limit ?2)", nativeQuery = true)
+    int purgeDeleted(LocalDateTime deletedBefore, int limit);
 }
@@ -2,29 +2,52 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingReadRepository;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingsMovedEvent;
+import ru.practicum.shareit.booking.event.BookingsRemovedEvent;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.cache.EntityCacheEvictor;
 import ru.practicum.shareit.comments.Comment;
 import ru.practicum.shareit.comments.CommentRepository;
 import ru.practicum.shareit.comments.dto.CommentMapper;
 import ru.practicum.shareit.comments.dto.CommentRequestDto;
 import ru.practicum.shareit.comments.dto.CommentResponseDto;
+import ru.practicum.shareit.deletion.DeleteMode;
 import ru.practicum.shareit.exceptions.CommentConsistencyException;
 import ru.practicum.shareit.exceptions.DifferentUsersException;
 import ru.practicum.shareit.exceptions.EntityNotFoundException;
+import ru.practicum.shareit.exceptions.IncompleteWindowException;
+import ru.practicum.shareit.exceptions.StartAfterEndException;
+import ru.practicum.shareit.exceptions.TooManyIdsException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.suggest.ItemSuggestIndex;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.sharding.ShardRouter;
+import ru.practicum.shareit.sharding.Sharded;
 import ru.practicum.shareit.user.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.versioning.OptimisticUpdates;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,13 +55,30 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ItemService {
 
+    private static final Set<Status> BLOCKING_STATUSES = EnumSet.of(Status.WAITING, Status.APPROVED);
+    private static final Comparator<ItemResponseDto> BY_ID = Comparator.comparing(ItemResponseDto::getId);
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingReadRepository bookingReadRepository;
+    private final ItemReadRepository itemReadRepository;
     private final CommentRepository commentRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ItemSuggestIndex itemSuggestIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ShardRouter shardRouter;
+    private final OptimisticUpdates optimisticUpdates;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${shareit.delete.mode}")
+    private DeleteMode deleteMode;
+    @Value("${shareit.multiget.max-ids}")
+    private int maxIds;
 
     @Transactional
+    @Sharded("#userId")
     public ItemResponseDto addItem(ItemRequestDto dto, long userId) {
 
         if (userRepository.findById(userId).isEmpty()) {
@@ -49,24 +89,39 @@ public class ItemService {
                         "User with id %d not found", userId)));
         dto.setUser(user);
         Item item = ItemMapper.ITEM_MAPPER.toItem(dto);
+        Item saved = itemRepository.save(item);
+        eventPublisher.publishEvent(changedEvent(saved, false));
         log.info("item with name {} added", item.getName());
-        return ItemMapper.ITEM_MAPPER.toDto(itemRepository.save(item));
+        return ItemMapper.ITEM_MAPPER.toDto(saved);
     }
 
-    @Transactional
-    public ItemResponseDto updateItem(ItemRequestDto dto, Long userId, Long itemId) {
+    /**
+     * {@code expectedVersion} is the one from {@code If-Match}, or null to apply the change to whatever
+     * version is current.
+     */
+    @Sharded("#itemId")
+    public ItemResponseDto updateItem(ItemRequestDto dto, Long userId, Long itemId, Long expectedVersion) {
+        return optimisticUpdates.run(String.format("item with id %d", itemId), expectedVersion,
+                () -> itemRepository.findByIdForUpdate(itemId),
+                () -> applyUpdate(dto, userId, itemId, expectedVersion));
+    }
+
+    private ItemResponseDto applyUpdate(ItemRequestDto dto, Long userId, Long itemId, Long expectedVersion) {
         if (userRepository.findById(userId).isEmpty()) {
             throw new EntityNotFoundException(String.format("there is no user with id %d for new item", userId));
         }
-        if (!userIsTheSame(itemId, userId)) {
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("cannot find Item with %s id", itemId)));
+        if (!item.getUser().getId().equals(userId)) {
             throw new DifferentUsersException("cannot update item's user");
         }
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotFoundException(String.format("item with %d id not found", itemId)));
+        OptimisticUpdates.checkVersion(String.format("item with id %d", itemId), expectedVersion, item.getVersion());
         if (dto.getName() != null) {
             item.setName(dto.getName());
         }
+        Long previousOwnerId = item.getUser().getId();
         if (dto.getUser() != null) {
+            checkSameShard(itemId, previousOwnerId, dto.getUser().getId());
             item.setUser(dto.getUser());
         }
         if (dto.getAvailable() != null) {
@@ -75,10 +130,27 @@ public class ItemService {
         if (dto.getDescription() != null) {
             item.setDescription(dto.getDescription());
         }
+        Item saved = itemRepository.saveAndFlush(item);
+        if (!previousOwnerId.equals(saved.getUser().getId())) {
+            moveBookings(itemId, previousOwnerId, saved.getUser().getId());
+        }
+        eventPublisher.publishEvent(changedEvent(saved, false));
         log.info("item with id {} updated", itemId);
-        return ItemMapper.ITEM_MAPPER.toDto(itemRepository.save(item));
+        return ItemMapper.ITEM_MAPPER.toDto(saved);
+    }
+
+    /**
+     * Ids of items, bookings and comments name the shard of the owner, so an item can only change hands between
+     * owners kept on the same shard.
+     */
+    private void checkSameShard(Long itemId, Long previousOwnerId, Long ownerId) {
+        if (ownerId != null && shardRouter.shardOf(ownerId) != shardRouter.shardOf(previousOwnerId)) {
+            throw new ValidationException(String.format("item with id %d cannot move to user with id %d, " +
+                    "who is kept on another shard", itemId, ownerId));
+        }
     }
 
+    @Sharded("#itemId")
     public ItemResponseDto getItem(Long ownerId, Long itemId) {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("item with id %s not found", itemId)));
@@ -101,67 +173,201 @@ public class ItemService {
                 dto.setNextBooking(BookingMapper.BOOKING_MAPPER.toBookingInItemDto(booking));
             }
         }
+        if (dto.getLastBooking() == null) {
+            archivedBookingRepository.findFirstByItem_IdOrderByEndDesc(itemId)
+                    .map(BookingMapper.BOOKING_MAPPER::fromArchive)
+                    .map(BookingMapper.BOOKING_MAPPER::toBookingInItemDto)
+                    .ifPresent(dto::setLastBooking);
+        }
         return dto;
     }
 
-    public List<ItemResponseDto> getItems(Long ownerId) {
-        List<ItemResponseDto> items = itemRepository.findAllByUser_Id(ownerId)
+    /**
+     * All items of the owner, or one page of them when {@code page} is given; only the bookings of the items
+     * on the page are read then.
+     */
+    @Sharded("#ownerId")
+    public List<ItemResponseDto> getItems(Long ownerId, ListingPage page) {
+        if (page == null) {
+            List<ItemResponseDto> items = itemReadRepository.findAllByOwner(ownerId);
+            setLastAndNextBookings(items, bookingReadRepository.findInItemByOwner(ownerId));
+            return items;
+        }
+        List<ItemResponseDto> items = itemReadRepository.findPageByOwner(ownerId, page);
+        setLastAndNextBookings(items, bookingReadRepository.findInItemByItems(items
                 .stream()
-                .map(ItemMapper.ITEM_MAPPER::toDto)
-                .sorted(Comparator.comparing(ItemResponseDto::getId))
-                .collect(Collectors.toList());
-        List<BookingInItemResponseDto> bookings = bookingRepository.findAllByItem_User_Id(ownerId)
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList())));
+        return items;
+    }
+
+    public List<ItemResponseDto> getItemsByIds(Collection<Long> ids, Long userId) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > maxIds) {
+            throw new TooManyIdsException(String.format("cannot get more than %d items at once", maxIds));
+        }
+        if (uniqueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, ItemResponseDto> found = shardRouter.gather(uniqueIds, shardIds -> findItemsByIds(shardIds, userId))
                 .stream()
-                .map(BookingMapper.BOOKING_MAPPER::toBookingInItemDto)
+                .collect(Collectors.toMap(ItemResponseDto::getId, Function.identity()));
+        return uniqueIds
+                .stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+    }
 
-        for (ItemResponseDto item : items) {
-            item.setLastBooking(bookings
+    private List<ItemResponseDto> findItemsByIds(Collection<Long> ids, Long userId) {
+        Map<Long, Item> found = itemRepository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, List<CommentResponseDto>> comments = commentRepository.findAllByItemIds(found.keySet())
+                .stream()
+                .collect(Collectors.groupingBy(c -> c.getItem().getId(),
+                        Collectors.mapping(CommentMapper.COMMENT_MAPPER::toDto, Collectors.toList())));
+        List<ItemResponseDto> items = new ArrayList<>(found.size());
+        List<ItemResponseDto> owned = new ArrayList<>();
+        for (Long id : ids) {
+            Item item = found.get(id);
+            if (item == null) {
+                continue;
+            }
+            ItemResponseDto dto = ItemMapper.ITEM_MAPPER.toDto(item);
+            dto.setComments(comments.getOrDefault(id, Collections.emptyList()));
+            items.add(dto);
+            if (item.getUser().getId().equals(userId)) {
+                owned.add(dto);
+            }
+        }
+        if (!owned.isEmpty()) {
+            setLastAndNextBookings(owned, bookingRepository.findAllByItemIds(owned
                     .stream()
-                    .filter(b -> b.getItemId().equals(item.getId()))
-                    .filter(b -> b.getEnd().isBefore(LocalDateTime.now()))
-                    .max(Comparator.comparing(BookingInItemResponseDto::getEnd))
-                    .orElse(null));
-            item.setNextBooking(bookings
+                    .map(ItemResponseDto::getId)
+                    .collect(Collectors.toList()))
                     .stream()
-                    .filter(b -> b.getItemId().equals(item.getId()))
-                    .filter(b -> b.getStart().isAfter(LocalDateTime.now()))
-                    .min(Comparator.comparing(BookingInItemResponseDto::getStart))
-                    .orElse(null));
+                    .map(BookingMapper.BOOKING_MAPPER::toBookingInItemDto)
+                    .collect(Collectors.toList()));
         }
         return items;
     }
 
+    @Sharded("#itemId")
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new EntityNotFoundException(String.format("item with id %s not found", itemId));
+        }
+        LocalDateTime windowStart = from != null ? from : LocalDateTime.now();
+        LocalDateTime windowEnd = to != null ? to : windowStart.plusMonths(1);
+        if (!windowStart.isBefore(windowEnd)) {
+            throw new StartAfterEndException("end of the availability window has to be after its start");
+        }
+        List<IntervalDto> busy = new ArrayList<>();
+        IntervalDto current = null;
+        for (IntervalDto booking : bookingRepository.findIntervalsByItem(itemId, BLOCKING_STATUSES,
+                windowStart, windowEnd)) {
+            LocalDateTime start = booking.getStart().isBefore(windowStart) ? windowStart : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(windowEnd) ? windowEnd : booking.getEnd();
+            if (current != null && !start.isAfter(current.getEnd())) {
+                if (end.isAfter(current.getEnd())) {
+                    current.setEnd(end);
+                }
+            } else {
+                current = new IntervalDto(start, end);
+                busy.add(current);
+            }
+        }
+        List<IntervalDto> free = new ArrayList<>();
+        LocalDateTime cursor = windowStart;
+        for (IntervalDto interval : busy) {
+            if (interval.getStart().isAfter(cursor)) {
+                free.add(new IntervalDto(cursor, interval.getStart()));
+            }
+            cursor = interval.getEnd();
+        }
+        if (cursor.isBefore(windowEnd)) {
+            free.add(new IntervalDto(cursor, windowEnd));
+        }
+        ItemAvailabilityDto dto = new ItemAvailabilityDto();
+        dto.setItemId(itemId);
+        dto.setFrom(windowStart);
+        dto.setTo(windowEnd);
+        dto.setBusy(busy);
+        dto.setFree(free);
+        return dto;
+    }
+
     @Transactional
+    @Sharded("#id")
     public ItemResponseDto deleteItem(Long id) {
-        Optional<Item> item = itemRepository.findById(id);
-        item.ifPresent(itemRepository::delete);
-        log.info("item with id {} deleted", id);
-        return ItemMapper.ITEM_MAPPER.toDto(item
-                .orElseThrow(() -> new EntityNotFoundException("there is no such item to delete")));
+        Item item = itemRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("there is no such item to delete"));
+        if (deleteMode == DeleteMode.SOFT) {
+            LocalDateTime now = LocalDateTime.now();
+            bookingRepository.markDeletedByItemId(id, now);
+            archivedBookingRepository.markDeletedByItemId(id, now);
+            commentRepository.markDeletedByItemId(id, now);
+            item.setDeletedAt(now);
+            entityCacheEvictor.evictAfterCommit(Item.class, id);
+            log.info("item with id {} marked as deleted", id);
+        } else {
+            bookingRepository.deleteAllByItemId(id);
+            archivedBookingRepository.deleteAllByItemId(id);
+            commentRepository.deleteAllByItemId(id);
+            itemRepository.delete(item);
+            log.info("item with id {} deleted", id);
+        }
+        eventPublisher.publishEvent(new BookingsRemovedEvent(item.getUser().getId()));
+        eventPublisher.publishEvent(changedEvent(item, true));
+        return ItemMapper.ITEM_MAPPER.toDto(item);
     }
 
-    public List<ItemResponseDto> searchItem(String text) {
-        if (text.isBlank()) {
+    public List<String> suggestNames(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
             return Collections.emptyList();
         }
-        return Optional.of(itemRepository.findAll()
-                        .stream()
-                        .filter(item -> item.getAvailable() &&
-                                (item.getName().toLowerCase().contains(text.toLowerCase())
-                                        || item.getDescription().toLowerCase().contains(text.toLowerCase())))
-                        .map(ItemMapper.ITEM_MAPPER::toDto)
-                        .collect(Collectors.toList()))
-                .orElseThrow(() -> new EntityNotFoundException("there is no item which satisfies your search"));
+        return itemSuggestIndex.suggest(prefix);
     }
 
+    public List<ItemResponseDto> searchItem(String text, LocalDateTime start, LocalDateTime end) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        if ((start == null) != (end == null)) {
+            throw new IncompleteWindowException("search window needs both start and end");
+        }
+        String query = ItemSearchCache.normalize(text);
+        String pattern = query
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        if (start == null) {
+            return itemSearchCache.get(query, () -> shardRouter.gather(() -> toDtos(itemRepository.search(pattern)),
+                    BY_ID));
+        }
+        if (!start.isBefore(end)) {
+            throw new StartAfterEndException("end of the search window has to be after its start");
+        }
+        return shardRouter.gather(() -> toDtos(itemRepository.searchFreeBetween(pattern, BLOCKING_STATUSES,
+                start, end)), BY_ID);
+    }
+
+    private List<ItemResponseDto> toDtos(List<Item> items) {
+        return items
+                .stream()
+                .map(ItemMapper.ITEM_MAPPER::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Sharded("#itemId")
     public CommentResponseDto addComment(CommentRequestDto dto, Long itemId, Long userId) {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("item with id %s not found", itemId)));
         LocalDateTime now = LocalDateTime.now();
         List<Booking> pastBookings = bookingRepository
                 .findPastBookingsByBookerAndItem(now, userId, itemId);
-        if (pastBookings.isEmpty()) {
+        if (pastBookings.isEmpty() && !archivedBookingRepository.existsByUser_IdAndItem_Id(userId, itemId)) {
             throw new CommentConsistencyException(String.format("user with id %d cannot leave comment for booking " +
                     "which is still current or in future", userId));
         }
@@ -176,11 +382,60 @@ public class ItemService {
         return CommentMapper.COMMENT_MAPPER.toDto(commentRepository.save(comment));
     }
 
-    private boolean userIsTheSame(Long itemId, Long userId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotFoundException(String.format("cannot find Item with %s id", itemId)));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException(String.format("cannot find User with %s id", userId)));
-        return item.getUser().equals(user);
+    private void setLastAndNextBookings(List<ItemResponseDto> items, List<BookingInItemResponseDto> bookings) {
+        Map<Long, List<BookingInItemResponseDto>> byItem = bookings
+                .stream()
+                .collect(Collectors.groupingBy(BookingInItemResponseDto::getItemId));
+        LocalDateTime now = LocalDateTime.now();
+        for (ItemResponseDto item : items) {
+            List<BookingInItemResponseDto> itemBookings = byItem.getOrDefault(item.getId(), Collections.emptyList());
+            item.setLastBooking(itemBookings
+                    .stream()
+                    .filter(b -> b.getEnd().isBefore(now))
+                    .max(Comparator.comparing(BookingInItemResponseDto::getEnd))
+                    .orElse(null));
+            item.setNextBooking(itemBookings
+                    .stream()
+                    .filter(b -> b.getStart().isAfter(now))
+                    .min(Comparator.comparing(BookingInItemResponseDto::getStart))
+                    .orElse(null));
+        }
+        setArchivedLastBookings(items);
+    }
+
+    private void setArchivedLastBookings(List<ItemResponseDto> items) {
+        List<Long> withoutLast = items
+                .stream()
+                .filter(item -> item.getLastBooking() == null)
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList());
+        if (withoutLast.isEmpty()) {
+            return;
+        }
+        Map<Long, BookingInItemResponseDto> archived = new HashMap<>();
+        for (BookingInItemResponseDto booking : bookingReadRepository.findLatestArchivedByItems(withoutLast)) {
+            archived.putIfAbsent(booking.getItemId(), booking);
+        }
+        for (ItemResponseDto item : items) {
+            if (item.getLastBooking() == null) {
+                item.setLastBooking(archived.get(item.getId()));
+            }
+        }
+    }
+
+    /**
+     * Bookings carry the owner of their item, so they follow the item to its new owner, on the shard both owners
+     * share; the counters and listings of both owners are refreshed.
+     */
+    private void moveBookings(Long itemId, Long previousOwnerId, Long ownerId) {
+        bookingRepository.updateOwnerByItemId(itemId, ownerId);
+        archivedBookingRepository.updateOwnerByItemId(itemId, ownerId);
+        eventPublisher.publishEvent(new BookingsMovedEvent(itemId, previousOwnerId, ownerId));
+        log.info("bookings of item with id {} moved from owner with id {} to owner with id {}", itemId,
+                previousOwnerId, ownerId);
+    }
+
+    private ItemChangedEvent changedEvent(Item item, boolean removed) {
+        return new ItemChangedEvent(item.getId(), item.getUser().getId(), item.getName(), item.getAvailable(), removed);
     }
 }
@@ -16,6 +16,7 @@ public class ItemMapperImpl implements ItemMapper {
         dto.setAvailable(item.getAvailable());
         dto.setName(item.getName());
         dto.setUser(item.getUser());
+        dto.setVersion(item.getVersion());
         return dto;
     }
 
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
 import ru.practicum.shareit.comments.dto.CommentResponseDto;
@@ -18,4 +19,6 @@ public class ItemResponseDto {
     private BookingInItemResponseDto nextBooking;
     private User user;
     private List<CommentResponseDto> comments;
+    @JsonIgnore
+    private Long version;
 }
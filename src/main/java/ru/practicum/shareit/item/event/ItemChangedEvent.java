@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published inside the transaction that adds, updates or deletes an item; {@code removed} is set on delete.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ItemChangedEvent {
+
+    private final Long itemId;
+    private final Long ownerId;
+    private final String name;
+    private final Boolean available;
+    private final boolean removed;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when items of an owner changed in bulk (an import, a deleted owner), without per-item details.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OwnerItemsChangedEvent {
+
+    private final Long ownerId;
+}
@@ -1,13 +1,18 @@
 package ru.practicum.shareit.item.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
@@ -17,7 +22,12 @@ import java.util.Objects;
 @Getter
 @Setter
 @ToString
-@Table(name = "items", schema = "public")
+@Table(name = "items", schema = "public", indexes = {
+        @Index(name = "idx_items_owner", columnList = "owner_id, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
+@Where(clause = "deleted_at is null")
 public class Item {
 
     @Id
@@ -35,6 +45,13 @@ public class Item {
     @ManyToOne
     @JoinColumn(name = "owner_id")
     private User user;
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    @JsonIgnore
+    private Long version;
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.item.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.event.OwnerItemsChangedEvent;
+import ru.practicum.shareit.user.event.UserChangedEvent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Results of plain text searches, keyed by the normalized text and the item generation. Every committed item
+ * change bumps the generation, so older entries are never looked up again and age out of the cache. So does
+ * every committed user change, as the results carry their owners.
+ * The bump happens after commit: a search that read the old rows can only store them under the old generation.
+ */
+@Component
+public class ItemSearchCache {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<SearchKey, List<ItemResponseDto>> cache;
+
+    public ItemSearchCache(MeterRegistry meterRegistry,
+                           @Value("${shareit.items.search-cache.max-weight}") long maxWeight) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((SearchKey key, List<ItemResponseDto> items) -> items.size() + 1)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items.search");
+        Gauge.builder("shareit.items.generation", generation, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    public List<ItemResponseDto> get(String text, Supplier<List<ItemResponseDto>> search) {
+        SearchKey key = new SearchKey(generation.get(), normalize(text));
+        return cache.get(key, k -> Collections.unmodifiableList(search.get()));
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOwnerItemsChanged(OwnerItemsChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * The text as searched: trimmed, with runs of whitespace collapsed to one space, lower-cased whatever the
+     * default locale.
+     */
+    public static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class SearchKey {
+
+        private final long generation;
+        private final String text;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item.suggest;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemNameDto;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.event.OwnerItemsChangedEvent;
+import ru.practicum.shareit.sharding.ShardRouter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Names of available items for prefix suggestions. Loaded once on startup and kept current from item events.
+ */
+@Component
+@Slf4j
+public class ItemSuggestIndex {
+
+    private final ItemRepository itemRepository;
+    private final ShardRouter shardRouter;
+    private final int topN;
+    private final PrefixTrie trie;
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemSuggestIndex(ItemRepository itemRepository, ShardRouter shardRouter,
+                            @Value("${shareit.items.suggest.top-n}") int topN) {
+        this.itemRepository = itemRepository;
+        this.shardRouter = shardRouter;
+        this.topN = topN;
+        this.trie = new PrefixTrie(topN);
+    }
+
+    public List<String> suggest(String prefix) {
+        lock.readLock().lock();
+        try {
+            return trie.complete(prefix, topN);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<ItemNameDto> available = shardRouter.gather(itemRepository::findAvailableNames);
+        lock.writeLock().lock();
+        try {
+            available.forEach(item -> put(item.getId(), item.getOwnerId(), item.getName()));
+            log.info("suggest index loaded with {} item names in {} nodes", trie.size(), trie.nodeCount());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.isRemoved() || !Boolean.TRUE.equals(event.getAvailable())) {
+                remove(event.getItemId());
+            } else {
+                put(event.getItemId(), event.getOwnerId(), event.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOwnerItemsChanged(OwnerItemsChangedEvent event) {
+        List<ItemNameDto> available = shardRouter.onShard(shardRouter.shardOf(event.getOwnerId()),
+                () -> itemRepository.findAvailableNamesByOwner(event.getOwnerId()));
+        lock.writeLock().lock();
+        try {
+            items.entrySet().removeIf(entry -> {
+                if (entry.getValue().ownerId.equals(event.getOwnerId())) {
+                    trie.remove(entry.getValue().name);
+                    return true;
+                }
+                return false;
+            });
+            available.forEach(item -> put(item.getId(), item.getOwnerId(), item.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Long itemId, Long ownerId, String name) {
+        IndexedItem previous = items.put(itemId, new IndexedItem(ownerId, name));
+        if (previous != null) {
+            if (previous.name.equals(name)) {
+                return;
+            }
+            trie.remove(previous.name);
+        }
+        trie.add(name);
+    }
+
+    private void remove(Long itemId) {
+        IndexedItem previous = items.remove(itemId);
+        if (previous != null) {
+            trie.remove(previous.name);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class IndexedItem {
+
+        private final Long ownerId;
+        private final String name;
+    }
+}
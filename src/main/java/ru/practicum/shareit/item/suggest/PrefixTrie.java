@@ -0,0 +1,187 @@
+package ru.practicum.shareit.item.suggest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trie over lower-cased names. Children are kept in sorted parallel arrays, and every node stores its best
+ * {@code topN} completions, so a lookup is a walk down the prefix and a copy of at most {@code topN} names.
+ * Completions rank by the number of names that share them, then alphabetically, and are shown in the casing
+ * of the latest name added that has not been removed since. Not thread-safe.
+ */
+class PrefixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Completion[] NO_COMPLETIONS = new Completion[0];
+    private static final Comparator<Completion> RANK = Comparator
+            .comparingInt((Completion c) -> -c.names.size())
+            .thenComparing(c -> c.key);
+
+    private final int topN;
+    private final Node root = new Node();
+    private final Map<String, Completion> completions = new HashMap<>();
+
+    PrefixTrie(int topN) {
+        this.topN = topN;
+    }
+
+    void add(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Completion completion = completions.computeIfAbsent(key, Completion::new);
+        completion.names.addLast(name);
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(key.charAt(i));
+        }
+        path[key.length()].terminal = completion;
+        updateTops(path, key.length());
+    }
+
+    void remove(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Completion completion = completions.get(key);
+        if (completion == null || !completion.names.removeLastOccurrence(name)) {
+            return;
+        }
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+        }
+        if (completion.names.isEmpty()) {
+            completions.remove(key);
+            path[key.length()].terminal = null;
+            for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+                path[i] = null;
+            }
+        }
+        updateTops(path, key.length());
+    }
+
+    List<String> complete(String prefix, int limit) {
+        Node node = root;
+        String key = prefix.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        int size = Math.min(limit, node.top.length);
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            names.add(node.top[i].names.getLast());
+        }
+        return names;
+    }
+
+    int size() {
+        return completions.size();
+    }
+
+    int nodeCount() {
+        return root.nodeCount();
+    }
+
+    private void updateTops(Node[] path, int depth) {
+        for (int i = depth; i >= 0; i--) {
+            if (path[i] != null) {
+                path[i].top = best(path[i]);
+            }
+        }
+    }
+
+    private Completion[] best(Node node) {
+        List<Completion> candidates = new ArrayList<>();
+        if (node.terminal != null) {
+            candidates.add(node.terminal);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        if (candidates.isEmpty()) {
+            return NO_COMPLETIONS;
+        }
+        candidates.sort(RANK);
+        return candidates.subList(0, Math.min(topN, candidates.size())).toArray(NO_COMPLETIONS);
+    }
+
+    private static final class Completion {
+
+        private final String key;
+        private final ArrayDeque<String> names = new ArrayDeque<>();
+
+        private Completion(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Completion terminal;
+        private Completion[] top = NO_COMPLETIONS;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        private void removeChild(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            if (at < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(keys, at + 1, newKeys, at, keys.length - at - 1);
+            System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+            keys = newKeys.length == 0 ? NO_KEYS : newKeys;
+            children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+        }
+
+        private boolean isEmpty() {
+            return terminal == null && keys.length == 0;
+        }
+
+        private int nodeCount() {
+            int count = 1;
+            for (Node child : children) {
+                count += child.nodeCount();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A page of a listing in id order: the rows with ids above {@code after}, skipping the first {@code from} of
+ * them and keeping at most {@code size}. {@code after} is 0 when no cursor was given, as ids start at 1.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ListingPage {
+
+    private final long from;
+    private final int size;
+    private final long after;
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.paging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.practicum.shareit.exceptions.InvalidPageException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads {@code from}, {@code size} and {@code after} of a listing request and links a full page to the next
+ * one. The link continues from the last id returned, so later pages cost the same however deep they are.
+ */
+@Component
+public class Paging {
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public Paging(@Value("${shareit.paging.default-size}") int defaultSize,
+                  @Value("${shareit.paging.max-size}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns null when none of the parameters is given, for the whole listing.
+     */
+    public ListingPage of(Integer from, Integer size, Long after) {
+        if (from == null && size == null && after == null) {
+            return null;
+        }
+        if (from != null && from < 0) {
+            throw new InvalidPageException(String.format("from must not be negative, got %d", from));
+        }
+        if (size != null && (size < 1 || size > maxSize)) {
+            throw new InvalidPageException(String.format("size must be between 1 and %d, got %d", maxSize, size));
+        }
+        if (after != null && after < 0) {
+            throw new InvalidPageException(String.format("after must not be negative, got %d", after));
+        }
+        return new ListingPage(from == null ? 0 : from, size == null ? defaultSize : size,
+                after == null ? 0 : after);
+    }
+
+    /**
+     * A {@code Link} to the page after {@code rows}, when they fill the page.
+     */
+    public <T> HttpHeaders nextLink(List<T> rows, ListingPage page, Function<T, Long> id) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page != null && rows.size() == page.getSize()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("from")
+                    .replaceQueryParam("size", page.getSize())
+                    .replaceQueryParam("after", id.apply(rows.get(rows.size() - 1)))
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", next));
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.sharding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs work on other shards. Items, bookings and comments live on the shard of the item owner, and their ids
+ * are allocated so that {@code id mod shards} is that shard too; users are kept on every shard.
+ * <p>
+ * Work for another shard runs on a worker thread, in a transaction of its own, so it never joins a transaction
+ * or a persistence context the caller has open on a different shard. With one shard everything runs in place.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int HOME = 0;
+
+    private final int shardCount;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService workers;
+
+    public ShardRouter(PlatformTransactionManager transactionManager,
+                       @Value("${shareit.sharding.enabled}") boolean enabled,
+                       @Value("${shareit.sharding.urls}") List<String> urls,
+                       @Value("${shareit.sharding.worker-threads}") int workerThreads) {
+        this.shardCount = enabled ? Math.max(1, urls.size()) : 1;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        if (shardCount > 1) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-worker-");
+            threadFactory.setDaemon(true);
+            this.workers = Executors.newFixedThreadPool(workerThreads, threadFactory);
+        } else {
+            this.workers = null;
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Whether the current thread works on the home shard, as it does whenever sharding is off.
+     */
+    public boolean onHomeShard() {
+        Integer current = ShardContext.get();
+        return current == null || current == HOME;
+    }
+
+    public int shardOf(long key) {
+        return (int) Math.floorMod(key, (long) shardCount);
+    }
+
+    /**
+     * Runs the query on all shards in parallel and concatenates the results in shard order.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query) {
+        return gather(query, null);
+    }
+
+    /**
+     * Runs the query on all shards in parallel; results of several shards are merged in the given order.
+     */
+    public <T> List<T> gather(Supplier<List<T>> query, Comparator<? super T> order) {
+        if (shardCount == 1) {
+            return query.get();
+        }
+        List<Future<List<T>>> parts = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            parts.add(submit(shard, () -> readOnlyTransaction.execute(status -> query.get())));
+        }
+        return merge(parts, order);
+    }
+
+    /**
+     * Runs the query once per shard that holds any of the ids, with just the ids of that shard.
+     */
+    public <T> List<T> gather(Collection<Long> ids, Function<Collection<Long>, List<T>> query) {
+        if (shardCount == 1) {
+            return query.apply(ids);
+        }
+        Map<Integer, List<Long>> byShard = ids
+                .stream()
+                .collect(Collectors.groupingBy(this::shardOf, TreeMap::new, Collectors.toList()));
+        List<Future<List<T>>> parts = new ArrayList<>(byShard.size());
+        byShard.forEach((shard, shardIds) ->
+                parts.add(submit(shard, () -> readOnlyTransaction.execute(status -> query.apply(shardIds)))));
+        return merge(parts, null);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> action) {
+        if (shardCount == 1) {
+            return action.get();
+        }
+        return await(submit(shard, action));
+    }
+
+    /**
+     * Runs the action on every shard in turn, home shard first.
+     */
+    public void forEachShard(Runnable action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            onShard(shard, () -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    private <T> Future<T> submit(int shard, Supplier<T> action) {
+        return workers.submit(() -> {
+            ShardContext.set(shard);
+            try {
+                return action.get();
+            } finally {
+                ShardContext.set(null);
+            }
+        });
+    }
+
+    private <T> List<T> merge(List<Future<List<T>>> parts, Comparator<? super T> order) {
+        List<T> merged = new ArrayList<>();
+        try {
+            for (Future<List<T>> part : parts) {
+                merged.addAll(await(part));
+            }
+        } catch (RuntimeException | Error e) {
+            parts.forEach(part -> part.cancel(true));
+            throw e;
+        }
+        if (order != null && parts.size() > 1) {
+            merged.sort(order);
+        }
+        return merged;
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
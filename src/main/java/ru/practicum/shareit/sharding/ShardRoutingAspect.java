@@ -0,0 +1,96 @@
+package ru.practicum.shareit.sharding;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies {@link Sharded}. Runs outside the transaction interceptor, so the transaction of the method is opened
+ * on the chosen shard. An entity manager bound to the request by open-in-view keeps its connection, and with it
+ * its shard, until the request ends; it is set aside while the method runs on another shard.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class ShardRoutingAspect {
+
+    private final ShardRouter shardRouter;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    ShardRoutingAspect(ShardRouter shardRouter, EntityManagerFactory entityManagerFactory) {
+        this.shardRouter = shardRouter;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Around("@annotation(ru.practicum.shareit.sharding.Sharded)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Sharded sharded = AnnotationUtils.findAnnotation(method, Sharded.class);
+        if (!sharded.everyShard()) {
+            return proceedOn(shardOf(method, joinPoint.getArgs(), sharded.value()), joinPoint);
+        }
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            proceedOn(shard, joinPoint);
+        }
+        return proceedOn(ShardRouter.HOME, joinPoint);
+    }
+
+    private int shardOf(Method method, Object[] args, String key) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(null, method, args, parameterNames);
+        Object value = expressions.computeIfAbsent(key, parser::parseExpression).getValue(context);
+        if (value == null) {
+            return ShardRouter.HOME;
+        }
+        return shardRouter.shardOf(((Number) value).longValue());
+    }
+
+    private Object proceedOn(int shard, ProceedingJoinPoint joinPoint) throws Throwable {
+        Integer current = ShardContext.get();
+        int currentShard = current != null ? current : ShardRouter.HOME;
+        if (current != null && currentShard == shard) {
+            return joinPoint.proceed();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(String.format("cannot move to shard %d inside a transaction on shard %d",
+                    shard, currentShard));
+        }
+        EntityManagerHolder outer = (EntityManagerHolder) TransactionSynchronizationManager
+                .unbindResourceIfPossible(entityManagerFactory);
+        ShardContext.set(shard);
+        if (outer != null) {
+            TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                    new EntityManagerHolder(entityManagerFactory.createEntityManager()));
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (outer != null) {
+                EntityManagerHolder own = (EntityManagerHolder) TransactionSynchronizationManager
+                        .unbindResource(entityManagerFactory);
+                EntityManagerFactoryUtils.closeEntityManager(own.getEntityManager());
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, outer);
+            }
+            ShardContext.set(current);
+        }
+    }
+}
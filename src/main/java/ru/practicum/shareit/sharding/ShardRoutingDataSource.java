@@ -0,0 +1,29 @@
+package ru.practicum.shareit.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Hands out connections of the shard set in {@link ShardContext}, or of the home shard when none is set.
+ * The shard is resolved when a connection is taken, so it has to be set before a transaction starts.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.get();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof Closeable) {
+                ((Closeable) shard).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a service method on one shard, chosen by a SpEL expression over the method arguments that gives an owner
+ * id, or an item, booking or comment id: those are allocated on the shard of their owner, so both map to the same
+ * shard. With {@link #everyShard()} the method runs on every shard in turn, home shard last, so the home shard
+ * only commits once the others have; its result is the one returned.
+ * <p>
+ * Has no effect unless {@code shareit.sharding.enabled} is set.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sharded {
+
+    String value() default "";
+
+    boolean everyShard() default false;
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces the single datasource with one pool per {@code shareit.sharding.urls} entry, behind a router.
+ * Every shard gets schema.sql, and identities of items, bookings and comments that step by the number of shards
+ * from an offset equal to the shard index.
+ * <p>
+ * Hibernate schema generation would only reach the home shard and reset those identities, so it has to stay off.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "shareit.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Set<String> SAFE_DDL_AUTO = Set.of("none", "validate");
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${shareit.sharding.urls}") List<String> urls,
+                                 @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("shareit.sharding.urls has to list at least one database");
+        }
+        if (!SAFE_DDL_AUTO.contains(ddlAuto)) {
+            throw new IllegalStateException(String.format("sharding needs spring.jpa.hibernate.ddl-auto " +
+                    "set to none or validate, not %s", ddlAuto));
+        }
+        Map<Object, Object> shards = new HashMap<>();
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(shard))
+                    .build();
+            dataSource.setPoolName("shard-" + shard);
+            prepare(dataSource, shard, urls.size());
+            shards.put(shard, dataSource);
+        }
+        ShardRoutingDataSource router = new ShardRoutingDataSource();
+        router.setTargetDataSources(shards);
+        router.setDefaultTargetDataSource(shards.get(ShardRouter.HOME));
+        log.info("sharding across {} databases", urls.size());
+        return router;
+    }
+
+    @Bean
+    ShardRoutingAspect shardRoutingAspect(ShardRouter shardRouter, EntityManagerFactory entityManagerFactory) {
+        return new ShardRoutingAspect(shardRouter, entityManagerFactory);
+    }
+
+    private void prepare(DataSource dataSource, int shard, int shards) {
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("schema.sql")), dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        allocateIds(jdbcTemplate, "items", "select coalesce(max(id), 0) from items", shard, shards);
+        allocateIds(jdbcTemplate, "bookings", "select coalesce(max(id), 0) from (select id from bookings " +
+                "union all select id from bookings_archive) b", shard, shards);
+        allocateIds(jdbcTemplate, "comments", "select coalesce(max(id), 0) from comments", shard, shards);
+    }
+
+    /**
+     * Restarts past the ids already taken, so the shard can be reopened with its data.
+     */
+    private void allocateIds(JdbcTemplate jdbcTemplate, String table, String maxIdSql, int shard, int shards) {
+        long next = jdbcTemplate.queryForObject(maxIdSql, Long.class) + 1;
+        next += Math.floorMod(shard - next, (long) shards);
+        jdbcTemplate.execute(String.format("alter table %s alter column id set increment by %d restart with %d",
+                table, shards, next));
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.sharding;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies users from the home shard, where they are created, to the other shards, which join items, bookings
+ * and comments to them. Copies are made after the home shard commits; one that fails is logged and the shard
+ * catches up the next time the user changes.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserReplicator {
+
+    private static final String SELECT = "select id, name, email, deleted_at, deleted_email, version from users " +
+            "where id in (:ids)";
+    private static final String UPDATE = "update users set name = ?, email = ?, deleted_at = ?, deleted_email = ?, " +
+            "version = ? where id = ?";
+    private static final String INSERT = "insert into users (name, email, deleted_at, deleted_email, version, id) " +
+            "values (?, ?, ?, ?, ?, ?)";
+
+    private final ShardRouter shardRouter;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public boolean isActive() {
+        return shardRouter.getShardCount() > 1;
+    }
+
+    public void replicateAfterCommit(Collection<Long> userIds) {
+        if (!isActive() || userIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            replicate(userIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                replicate(userIds);
+            }
+        });
+    }
+
+    private void replicate(Collection<Long> userIds) {
+        List<Object[]> users = shardRouter.onShard(ShardRouter.HOME, () -> jdbcTemplate.query(SELECT,
+                Map.of("ids", userIds), (rs, rowNum) -> new Object[]{rs.getString("name"), rs.getString("email"),
+                        rs.getTimestamp("deleted_at"), rs.getString("deleted_email"), rs.getLong("version"),
+                        rs.getLong("id")}));
+        for (int shard = 1; shard < shardRouter.getShardCount(); shard++) {
+            int target = shard;
+            try {
+                shardRouter.onShard(target, () -> transactionTemplate.execute(status -> {
+                    for (Object[] user : users) {
+                        if (jdbcTemplate.getJdbcTemplate().update(UPDATE, user) == 0) {
+                            jdbcTemplate.getJdbcTemplate().update(INSERT, user);
+                        }
+                    }
+                    return null;
+                }));
+            } catch (RuntimeException e) {
+                log.error("cannot copy users {} to shard {}", userIds, target, e);
+            }
+        }
+    }
+}
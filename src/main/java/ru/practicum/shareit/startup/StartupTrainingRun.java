@@ -0,0 +1,36 @@
+package ru.practicum.shareit.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Training run for the class data sharing archive of the {@code fast-start} build profile: serves one
+ * {@code GET /users}, so request handling classes land in the class list too, and closes the application
+ * context. No thread outlives the context, so the JVM then ends on its own and the build goes on with the exit
+ * code of the process.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "shareit.startup.training-run", havingValue = "true")
+public class StartupTrainingRun {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exerciseAndExit(ApplicationReadyEvent event) throws IOException, InterruptedException {
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + "/users"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        log.info("training run: GET /users answered with {}", response.statusCode());
+        SpringApplication.exit(event.getApplicationContext());
+    }
+}
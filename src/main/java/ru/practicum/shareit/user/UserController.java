@@ -1,12 +1,19 @@
 package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.bulkhead.BulkheadGroup;
+import ru.practicum.shareit.bulkhead.Bulkheaded;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.paging.Paging;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.versioning.OptimisticUpdates;
 
 import javax.validation.Valid;
-import java.util.Set;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping(path = "/users")
@@ -14,29 +21,53 @@ import java.util.Set;
 public class UserController {
 
     private final UserService userService;
+    private final Paging paging;
 
     @PostMapping
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<UserDto> addUser(@Valid @RequestBody UserDto dto) {
-        return ResponseEntity.ok(userService.addUser(dto));
+        return versioned(userService.addUser(dto));
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<UserDto> patchUser(@RequestBody UserDto dto, @PathVariable Long userId) {
-        return ResponseEntity.ok(userService.updateUser(dto, userId));
+    @Bulkheaded(BulkheadGroup.WRITE)
+    public ResponseEntity<UserDto> patchUser(@RequestBody UserDto dto, @PathVariable Long userId,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                             String ifMatch) {
+        return versioned(userService.updateUser(dto, userId, OptimisticUpdates.expectedVersion(ifMatch)));
     }
 
     @GetMapping("/{userId}")
     public ResponseEntity<UserDto> getUser(@PathVariable Long userId) {
-        return ResponseEntity.ok(userService.getUser(userId));
+        return versioned(userService.getUser(userId));
     }
 
     @GetMapping
-    public ResponseEntity<Set<UserDto>> getUsers() {
-        return ResponseEntity.ok(userService.getUsers());
+    @Bulkheaded(BulkheadGroup.LISTING)
+    public ResponseEntity<Stream<UserDto>> getUsers(@RequestParam(required = false) Integer from,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestParam(required = false) Long after) {
+        ListingPage page = paging.of(from, size, after);
+        if (page == null) {
+            return ResponseEntity.ok(userService.streamUsers());
+        }
+        List<UserDto> users = userService.getUsers(page);
+        return ResponseEntity.ok().headers(paging.nextLink(users, page, UserDto::getId)).body(users.stream());
+    }
+
+    @GetMapping(params = "ids")
+    @Bulkheaded(BulkheadGroup.LISTING)
+    public ResponseEntity<List<UserDto>> getUsersByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
     }
 
     @DeleteMapping("/{userId}")
+    @Bulkheaded(BulkheadGroup.WRITE)
     public ResponseEntity<UserDto> deleteUser(@PathVariable Long userId) {
         return ResponseEntity.ok(userService.deleteUser(userId));
     }
+
+    private ResponseEntity<UserDto> versioned(UserDto dto) {
+        return ResponseEntity.ok().eTag(String.valueOf(dto.getVersion())).body(dto);
+    }
 }
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-only user queries for the listing endpoints. Rows go straight into response DTOs, so nothing is
+ * attached to the persistence context.
+ */
+@Slf4j
+@Repository
+public class UserReadRepository {
+
+    private static final String SELECT_ALL = "select id, name, email, version from users " +
+            "where deleted_at is null order by id";
+    private static final RowMapper<UserDto> RESPONSE_MAPPER = (rs, rowNum) -> {
+        UserDto dto = new UserDto();
+        dto.setId(rs.getLong("id"));
+        dto.setName(rs.getString("name"));
+        dto.setEmail(rs.getString("email"));
+        dto.setVersion(rs.getLong("version"));
+        return dto;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final int fetchSize;
+
+    public UserReadRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource,
+                              @Value("${shareit.users.stream-fetch-size}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    public List<UserDto> findAll() {
+        return jdbcTemplate.query(SELECT_ALL, RESPONSE_MAPPER);
+    }
+
+    public List<UserDto> findPage(ListingPage page) {
+        return jdbcTemplate.query("select id, name, email, version from users where deleted_at is null " +
+                        "and id > :after order by id limit :size offset :from",
+                new MapSqlParameterSource("after", page.getAfter())
+                        .addValue("size", page.getSize())
+                        .addValue("from", page.getFrom()), RESPONSE_MAPPER);
+    }
+
+    /**
+     * Every user in id order, read while the stream is consumed. Nothing is queried until the first element is
+     * pulled, so a stream that is never consumed holds no connection. From then on the stream holds one until it
+     * is closed; autocommit is off meanwhile, which PostgreSQL needs to send rows {@code fetch-size} at a time
+     * instead of all at once.
+     */
+    public Stream<UserDto> streamAll() {
+        Cursor cursor = new Cursor();
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    private class Cursor extends Spliterators.AbstractSpliterator<UserDto> {
+
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet rs;
+        private boolean restoreAutoCommit;
+        private boolean closed;
+        private int rowNum;
+
+        Cursor() {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super UserDto> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (rs == null) {
+                    open();
+                }
+                if (!rs.next()) {
+                    return false;
+                }
+                action.accept(RESPONSE_MAPPER.mapRow(rs, rowNum++));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw jdbcTemplate.getJdbcTemplate().getExceptionTranslator().translate("streamAll", SELECT_ALL, e);
+            }
+        }
+
+        private void open() throws SQLException {
+            connection = DataSourceUtils.getConnection(dataSource);
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            statement = connection.prepareStatement(SELECT_ALL);
+            statement.setFetchSize(fetchSize);
+            rs = statement.executeQuery();
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (connection == null) {
+                return;
+            }
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(statement);
+            try {
+                if (restoreAutoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                log.warn("cannot restore autocommit after streaming users", e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+    }
+}
@@ -1,9 +1,59 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = ?1")
+    Optional<User> findByIdForUpdate(Long id);
+
+    @Query(value = "select u.email from users u where u.email in ?1", nativeQuery = true)
+    List<String> findExistingEmails(Collection<String> emails);
+
+    @Query(value = "select u.id from users u where u.email in ?1", nativeQuery = true)
+    List<Long> findIdsByEmails(Collection<String> emails);
+
+    /**
+     * Deletes the copy of a user kept on a shard other than home, if there is one.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "delete from users where id = ?1", nativeQuery = true)
+    void deleteCopy(Long id);
+
+    /**
+     * Marks the copy of a user kept on a shard other than home as deleted, as the home shard marks the user.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "update users set deleted_email = email, email = ?2, deleted_at = ?3, version = version + 1 " +
+            "where id = ?1 and deleted_at is null", nativeQuery = true)
+    void markCopyDeleted(Long id, String placeholderEmail, LocalDateTime deletedAt);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "delete from users where id in (select u.id from users u where u.deleted_at < ?1 " +
+            "and not exists (select 1 from items i where i.owner_id = u.id) " +
+            "and not exists (select 1 from bookings b where b.booker_id = u.id) " +
+            "and not exists (select 1 from bookings_archive a where a.booker_id = u.id) " +
+            "and not exists (select 1 from comments c where c.author_id = u.id) limit ?2)", nativeQuery = true)
+    int purgeDeleted(LocalDateTime deletedBefore, int limit);
 }
@@ -2,18 +2,37 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.event.BookingsRemovedEvent;
+import ru.practicum.shareit.cache.EntityCacheEvictor;
+import ru.practicum.shareit.comments.CommentRepository;
+import ru.practicum.shareit.deletion.DeleteMode;
 import ru.practicum.shareit.exceptions.EntityNotFoundException;
+import ru.practicum.shareit.exceptions.TooManyIdsException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.event.OwnerItemsChangedEvent;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.sharding.ShardRouter;
+import ru.practicum.shareit.sharding.Sharded;
+import ru.practicum.shareit.sharding.UserReplicator;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.event.UserChangedEvent;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.versioning.OptimisticUpdates;
 
 import javax.transaction.Transactional;
-import java.util.Comparator;
-import java.util.LinkedHashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -21,25 +40,54 @@ import java.util.stream.Collectors;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserReadRepository userReadRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final CommentRepository commentRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ShardRouter shardRouter;
+    private final UserReplicator userReplicator;
+    private final OptimisticUpdates optimisticUpdates;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${shareit.delete.mode}")
+    private DeleteMode deleteMode;
+    @Value("${shareit.multiget.max-ids}")
+    private int maxIds;
 
     @Transactional
     public UserDto addUser(UserDto dto) {
+        User saved = saveUnique(UserMapper.USER_MAPPER.toUser(dto));
+        userReplicator.replicateAfterCommit(List.of(saved.getId()));
         log.info("user with name {} added to database", dto.getName());
-        return UserMapper.USER_MAPPER.toDto(userRepository.save(UserMapper.USER_MAPPER.toUser(dto)));
+        return UserMapper.USER_MAPPER.toDto(saved);
     }
 
-    @Transactional
-    public UserDto updateUser(UserDto dto, Long id) {
+    /**
+     * {@code expectedVersion} is the one from {@code If-Match}, or null to apply the change to whatever
+     * version is current.
+     */
+    public UserDto updateUser(UserDto dto, Long id, Long expectedVersion) {
+        return optimisticUpdates.run(String.format("user with id %d", id), expectedVersion,
+                () -> userRepository.findByIdForUpdate(id), () -> applyUpdate(dto, id, expectedVersion));
+    }
+
+    private UserDto applyUpdate(UserDto dto, Long id, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("user with id %d not found", id)));
+        OptimisticUpdates.checkVersion(String.format("user with id %d", id), expectedVersion, user.getVersion());
         if (dto.getName() != null) {
             user.setName(dto.getName());
         }
         if (dto.getEmail() != null) {
             user.setEmail(dto.getEmail());
         }
+        User saved = saveUnique(user);
+        userReplicator.replicateAfterCommit(List.of(id));
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         log.info("user with id {} updated in database", id);
-        return UserMapper.USER_MAPPER.toDto(userRepository.save(user));
+        return UserMapper.USER_MAPPER.toDto(saved);
     }
 
     public UserDto getUser(Long id) {
@@ -47,20 +95,99 @@ public class UserService {
                 .orElseThrow(() -> new EntityNotFoundException(String.format("no user with %d id found", id))));
     }
 
-    public Set<UserDto> getUsers() {
-        return userRepository.findAll()
+    /**
+     * Every user in id order, read from the database as the stream is consumed; close it when done.
+     */
+    public Stream<UserDto> streamUsers() {
+        return userReadRepository.streamAll();
+    }
+
+    public List<UserDto> getUsers(ListingPage page) {
+        return userReadRepository.findPage(page);
+    }
+
+    public List<UserDto> getUsersByIds(Collection<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > maxIds) {
+            throw new TooManyIdsException(String.format("cannot get more than %d users at once", maxIds));
+        }
+        if (uniqueIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, User> found = userRepository.findAllById(uniqueIds)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return uniqueIds
                 .stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
                 .map(UserMapper.USER_MAPPER::toDto)
-                .sorted(Comparator.comparing(UserDto::getId))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+                .collect(Collectors.toList());
     }
 
+    /**
+     * In soft mode the row stays until it is purged, so its email moves to {@code deleted_email} and a
+     * placeholder unique to the id takes its place: the address can be registered again right away.
+     * <p>
+     * Runs on every shard, home shard last. Only the home shard looks the user up; the others change the rows
+     * of the user with plain statements, whether or not they hold a copy of it, so a delete that failed half
+     * way can be repeated. The events are published once, from the home shard.
+     */
     @Transactional
+    @Sharded(everyShard = true)
     public UserDto deleteUser(Long id) {
-        Optional<User> user = userRepository.findById(id);
-        user.ifPresent(userRepository::delete);
-        log.info("user with id {} deleted from database", id);
-        return UserMapper.USER_MAPPER.toDto(user
-                .orElseThrow(() -> new EntityNotFoundException(String.format("no user with %d id to delete", id))));
+        boolean home = shardRouter.onHomeShard();
+        User user = home ? userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("no user with %d id to delete", id)))
+                : null;
+        UserDto deleted = home ? UserMapper.USER_MAPPER.toDto(user) : null;
+        if (deleteMode == DeleteMode.SOFT) {
+            LocalDateTime now = LocalDateTime.now();
+            bookingRepository.markDeletedByUserId(id, now);
+            archivedBookingRepository.markDeletedByUserId(id, now);
+            commentRepository.markDeletedByUserId(id, now);
+            itemRepository.markDeletedByOwnerId(id, now);
+            if (home) {
+                user.setDeletedEmail(user.getEmail());
+                user.setEmail(placeholderEmail(id));
+                user.setDeletedAt(now);
+                entityCacheEvictor.evictAfterCommit(User.class, id);
+            } else {
+                userRepository.markCopyDeleted(id, placeholderEmail(id), now);
+            }
+            log.info("user with id {} marked as deleted", id);
+        } else {
+            bookingRepository.deleteAllByUserId(id);
+            archivedBookingRepository.deleteAllByUserId(id);
+            commentRepository.deleteAllByUserId(id);
+            itemRepository.deleteAllByOwnerId(id);
+            if (home) {
+                userRepository.delete(user);
+            } else {
+                userRepository.deleteCopy(id);
+            }
+            log.info("user with id {} deleted from database", id);
+        }
+        if (home) {
+            eventPublisher.publishEvent(new BookingsRemovedEvent(null));
+            eventPublisher.publishEvent(new OwnerItemsChangedEvent(id));
+        }
+        return deleted;
+    }
+
+    private static String placeholderEmail(Long id) {
+        return String.format("%d@deleted.invalid", id);
+    }
+
+    /**
+     * Flushes right away, so an email taken in the meantime by another request fails here, as a conflict,
+     * instead of at commit.
+     */
+    private User saveUnique(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new ValidationException(String.format("user with email %s already exists", user.getEmail()));
+        }
     }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import javax.validation.constraints.Email;
@@ -14,4 +15,6 @@ public class UserDto {
     @Email
     @NotBlank
     private String email;
+    @JsonIgnore
+    private Long version;
 }
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user.dto;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 import ru.practicum.shareit.user.model.User;
 
@@ -12,6 +13,8 @@ public interface UserMapper {
 
     UserDto toDto(User user);
 
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "deletedEmail", ignore = true)
     User toUser(UserDto dto);
 
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.user.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published inside the transaction that updates the name or email of a user.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final Long userId;
+}
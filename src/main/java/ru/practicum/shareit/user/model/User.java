@@ -1,12 +1,17 @@
 package ru.practicum.shareit.user.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
@@ -14,6 +19,9 @@ import java.util.Objects;
 @Setter
 @ToString
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Where(clause = "deleted_at is null")
 public class User {
 
     @Id
@@ -26,6 +34,16 @@ public class User {
     @Email
     @NotBlank
     private String email;
+    @Column(name = "deleted_at")
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+    @Column(name = "deleted_email", length = 512)
+    @JsonIgnore
+    private String deletedEmail;
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    @JsonIgnore
+    private Long version;
 
     public User() {
     }
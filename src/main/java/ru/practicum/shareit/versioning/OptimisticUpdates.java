@@ -0,0 +1,97 @@
+package ru.practicum.shareit.versioning;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exceptions.ConcurrentUpdateException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Read-merge-write updates of versioned entities without locks. The write carries the version that was read
+ * in its {@code where} clause, so it misses when another update committed in between. With an expected
+ * version from {@code If-Match} that is a failed precondition; without one the update runs again on the
+ * fresh row, so partial updates of different fields all land. Retries first wait a random, growing while, so
+ * writers that keep colliding spread out instead of missing each other in lockstep, and the last attempt
+ * locks the row before reading it, so a writer that keeps losing the race still gets its turn.
+ */
+@Component
+public class OptimisticUpdates {
+
+    private static final long MAX_BACKOFF_MS = 32;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public OptimisticUpdates(TransactionTemplate transactionTemplate,
+                             @Value("${shareit.updates.max-attempts}") int maxAttempts) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Runs {@code update} in a transaction of its own, once more for every write that misses. On the last
+     * attempt {@code lock} runs first, in the same transaction, and is expected to lock the row.
+     */
+    public <T> T run(String entity, Long expectedVersion, Runnable lock, Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            boolean last = attempt == maxAttempts;
+            try {
+                return transactionTemplate.execute(status -> {
+                    if (last) {
+                        lock.run();
+                    }
+                    return update.get();
+                });
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null) {
+                    throw new PreconditionFailedException(String.format("%s changed after version %d",
+                            entity, expectedVersion));
+                }
+                if (last) {
+                    throw new ConcurrentUpdateException(String.format("%s kept changing, gave up after %d " +
+                            "attempts", entity, attempt));
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long bound = Math.min(MAX_BACKOFF_MS, 1L << attempt);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("interrupted while waiting to retry an update");
+        }
+    }
+
+    /**
+     * Fails unless the version read is the one the client expects; a null expectation matches any.
+     */
+    public static void checkVersion(String entity, Long expectedVersion, Long version) {
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new PreconditionFailedException(String.format("%s is at version %d, not %d", entity, version,
+                    expectedVersion));
+        }
+    }
+
+    /**
+     * The version an {@code If-Match} header names, or null when there is no header or it is {@code *}.
+     * Weak tags never match, as If-Match compares strongly.
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.matches("\"\\d{1,18}\"")) {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        }
+        throw new PreconditionFailedException(String.format("If-Match %s does not name a version", ifMatch));
+    }
+}
@@ -3,6 +3,9 @@ CREATE TABLE IF NOT EXISTS users
     id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name  VARCHAR(255)                            NOT NULL,
     email VARCHAR(512)                            NOT NULL,
+    deleted_at TIMESTAMP WITHOUT TIME ZONE,
+    deleted_email VARCHAR(512),
+    version    BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
     CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
@@ -14,6 +17,8 @@ CREATE TABLE IF NOT EXISTS items
     description  VARCHAR(755)                            NOT NULL,
     is_available BOOLEAN,
     owner_id     BIGINT                                  NOT NULL,
+    deleted_at   TIMESTAMP WITHOUT TIME ZONE,
+    version      BIGINT DEFAULT 0                        NOT NULL,
     CONSTRAINT pk_item PRIMARY KEY (id),
     CONSTRAINT fk_user FOREIGN KEY (owner_id)
         REFERENCES users (id)
@@ -26,11 +31,15 @@ CREATE TABLE IF NOT EXISTS bookings
     end_date   TIMESTAMP WITHOUT TIME ZONE,
     item_id    BIGINT                                  NOT NULL,
     booker_id  BIGINT                                  NOT NULL,
+    owner_id   BIGINT                                  NOT NULL,
     status     VARCHAR(255)                            NOT NULL,
+    deleted_at TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_booking PRIMARY KEY (id),
     CONSTRAINT fk_item FOREIGN KEY (item_id)
         REFERENCES items (id),
     CONSTRAINT fk_booker FOREIGN KEY (booker_id)
+        REFERENCES users (id),
+    CONSTRAINT fk_owner FOREIGN KEY (owner_id)
         REFERENCES users (id)
 );
 
@@ -41,9 +50,55 @@ CREATE TABLE IF NOT EXISTS comments
     item_id   BIGINT                                  NOT NULL,
     author_id BIGINT                                  NOT NULL,
     created   TIMESTAMP WITHOUT TIME ZONE,
+    deleted_at TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_comments PRIMARY KEY (id),
     CONSTRAINT fk_items FOREIGN KEY (item_id)
         REFERENCES items (id),
     CONSTRAINT fk_users FOREIGN KEY (author_id)
         REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_end ON bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_end ON bookings (end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_start ON bookings (owner_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_status ON bookings (owner_id, status);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (status, start_date);
+
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT                      NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE,
+    end_date   TIMESTAMP WITHOUT TIME ZONE,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    owner_id   BIGINT                      NOT NULL,
+    status     VARCHAR(255)                NOT NULL,
+    deleted_at TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_booking_archive PRIMARY KEY (id),
+    CONSTRAINT fk_archive_item FOREIGN KEY (item_id)
+        REFERENCES items (id),
+    CONSTRAINT fk_archive_booker FOREIGN KEY (booker_id)
+        REFERENCES users (id),
+    CONSTRAINT fk_archive_owner FOREIGN KEY (owner_id)
+        REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_end ON bookings_archive (booker_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_end ON bookings_archive (item_id, end_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_owner_start ON bookings_archive (owner_id, start_date);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys
+(
+    id           VARCHAR(32)                 NOT NULL,
+    fingerprint  VARCHAR(32)                 NOT NULL,
+    status       INTEGER,
+    content_type VARCHAR(255),
+    etag         VARCHAR(255),
+    body         TEXT,
+    created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys (created_at);
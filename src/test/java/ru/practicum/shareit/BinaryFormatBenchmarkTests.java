@@ -0,0 +1,137 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import ru.practicum.shareit.booking.BookingReadRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and CPU time and allocation per serialization of an owner listing in JSON, CBOR and Smile,
+ * with the mappers the HTTP converters use. Run with {@code mvn test -Dtest=BinaryFormatBenchmarkTests -Dbench=true}.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class BinaryFormatBenchmarkTests {
+
+    private static final int USERS = 500;
+    private static final int ITEMS = 50;
+    private static final int BOOKINGS = 2000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingReadRepository bookingReadRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    private List<BookingResponseDto> listing;
+
+    @BeforeAll
+    void seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "user" + i, "format-user" + i + "@mail.ru"));
+        }
+        users = userRepository.saveAll(users);
+        User owner = users.get(0);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = new Item();
+            item.setName("item" + i);
+            item.setDescription("format bench item " + i + ", pick up in the city centre");
+            item.setAvailable(true);
+            item.setUser(owner);
+            items.add(item);
+        }
+        items = itemRepository.saveAll(items);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setItem(items.get(i % ITEMS));
+            booking.setOwnerId(items.get(i % ITEMS).getUser().getId());
+            booking.setUser(users.get(1 + i % (USERS - 1)));
+            booking.setStart(now.plusHours(i - BOOKINGS / 2));
+            booking.setEnd(now.plusHours(i - BOOKINGS / 2 + 1));
+            booking.setStatus(Status.values()[i % Status.values().length]);
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+        listing = bookingReadRepository.findAllByOwner(owner.getId());
+    }
+
+    @Test
+    void ownerListing() throws JsonProcessingException {
+        System.out.printf("GET /bookings/owner, %d bookings%n", listing.size());
+        measure("json", objectMapper);
+        measure("cbor", cborConverter.getObjectMapper());
+        measure("smile", smileConverter.getObjectMapper());
+    }
+
+    private void measure(String format, ObjectMapper mapper) throws JsonProcessingException {
+        ObjectWriter writer = mapper.writerFor(mapper.getTypeFactory()
+                .constructCollectionType(List.class, BookingResponseDto.class));
+        byte[] payload = writer.writeValueAsBytes(listing);
+        for (int i = 0; i < WARMUP; i++) {
+            writer.writeValueAsBytes(listing);
+        }
+        long threadId = Thread.currentThread().getId();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            writer.writeValueAsBytes(listing);
+        }
+        System.out.printf("%-5s %7d bytes, %6d gzipped; %5d us cpu, %5d KB allocated per call%n", format,
+                payload.length, gzipped(payload), (threads.getCurrentThreadCpuTime() - cpu) / ITERATIONS / 1000,
+                (threads.getThreadAllocatedBytes(threadId) - allocated) / ITERATIONS / 1024);
+    }
+
+    private int gzipped(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Decision;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+class BookingDecisionTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void everyIdGetsItsOwnOutcome() throws Exception {
+        UserDto owner = fixtures.user("decisions-owner");
+        UserDto other = fixtures.user("decisions-other");
+        UserDto booker = fixtures.user("decisions-booker");
+        ItemResponseDto item = fixtures.item(owner, "decided drill");
+        BookingResponseDto first = fixtures.book(booker, item, 1);
+        BookingResponseDto second = fixtures.book(booker, item, 2);
+        BookingResponseDto decided = fixtures.book(booker, item, 3);
+        bookingService.approveBooking(decided.getId(), owner.getId(), false);
+        BookingResponseDto foreign = fixtures.book(booker, fixtures.item(other, "decided drill"), 1);
+        long missing = foreign.getId() + 1000;
+        events.clear();
+
+        List<BookingDecisionDto> decisions = decide(owner, true, first.getId(), second.getId(), decided.getId(),
+                foreign.getId(), missing, first.getId());
+
+        assertEquals(List.of(new BookingDecisionDto(first.getId(), Decision.APPROVED),
+                new BookingDecisionDto(second.getId(), Decision.APPROVED),
+                new BookingDecisionDto(decided.getId(), Decision.NOT_WAITING),
+                new BookingDecisionDto(foreign.getId(), Decision.NOT_OWNER),
+                new BookingDecisionDto(missing, Decision.NOT_FOUND)), decisions);
+        assertEquals(Status.APPROVED, bookingService.getBooking(first.getId(), owner.getId()).getStatus());
+        assertEquals(Status.WAITING, bookingService.getBooking(foreign.getId(), other.getId()).getStatus());
+        List<BookingChangedEvent> changes = events.stream(BookingChangedEvent.class).collect(Collectors.toList());
+        assertEquals(List.of(first.getId(), second.getId()), changes
+                .stream()
+                .map(BookingChangedEvent::getBookingId)
+                .collect(Collectors.toList()));
+        for (BookingChangedEvent change : changes) {
+            assertEquals(Status.WAITING, change.getPreviousStatus());
+            assertEquals(Status.APPROVED, change.getStatus());
+            assertEquals(owner.getId(), change.getOwnerId());
+            assertEquals(booker.getId(), change.getBookerId());
+        }
+    }
+
+    @Test
+    void rejectedBookingsCannotBeDecidedAgain() throws Exception {
+        UserDto owner = fixtures.user("rejecting-owner");
+        ItemResponseDto item = fixtures.item(owner, "decided drill");
+        BookingResponseDto booking = fixtures.book(fixtures.user("rejecting-booker"), item, 1);
+
+        assertEquals(List.of(new BookingDecisionDto(booking.getId(), Decision.REJECTED)),
+                decide(owner, false, booking.getId()));
+        assertEquals(List.of(new BookingDecisionDto(booking.getId(), Decision.NOT_WAITING)),
+                decide(owner, true, booking.getId()));
+        assertEquals(1, events.stream(BookingChangedEvent.class)
+                .filter(change -> change.getBookingId().equals(booking.getId()))
+                .filter(change -> change.getStatus() == Status.REJECTED)
+                .count());
+    }
+
+    private List<BookingDecisionDto> decide(UserDto owner, boolean approved, Long... bookingIds) throws Exception {
+        MockHttpServletResponse response = mvc.perform(patch("/bookings")
+                .header("X-Sharer-User-Id", owner.getId())
+                .param("approved", String.valueOf(approved))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(bookingIds))))
+                .andReturn().getResponse();
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return Arrays.asList(objectMapper.readValue(response.getContentAsString(), BookingDecisionDto[].class));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.expiry.BookingExpiryJob;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BookingExpiryTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingExpiryJob bookingExpiryJob;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void waitingBookingsPastTheirStartExpire() {
+        UserDto owner = fixtures.user("expiry-owner");
+        UserDto booker = fixtures.user("expiry-booker");
+        ItemResponseDto item = fixtures.item(owner, "expiring drill");
+        BookingResponseDto started = fixtures.book(booker, item, 1);
+        BookingResponseDto upcoming = fixtures.book(booker, item, 2);
+        BookingResponseDto approved = fixtures.book(booker, item, 3);
+        bookingService.approveBooking(approved.getId(), owner.getId(), true);
+        jdbcTemplate.update("update bookings set start_date = start_date - interval '5' day where id in (?, ?)",
+                started.getId(), approved.getId());
+        assertEquals(2, bookingService.getOwnerStats(owner.getId()).getWaiting());
+        assertEquals(2, ids(bookingService.getBookingsByOwner(owner.getId(), "ALL"), Status.WAITING).size());
+
+        bookingExpiryJob.expire();
+
+        assertEquals(List.of(started.getId()), ids(bookingService.getBookingsByOwner(owner.getId(), "ALL"),
+                Status.EXPIRED));
+        assertEquals(List.of(upcoming.getId()), ids(bookingService.getBookingsByOwner(owner.getId(), "WAITING"),
+                Status.WAITING));
+        assertEquals(List.of(approved.getId()), ids(bookingService.getBookingsByOwner(owner.getId(), "ALL"),
+                Status.APPROVED));
+        BookingStatsDto stats = bookingService.getOwnerStats(owner.getId());
+        assertEquals(3, stats.getAll());
+        assertEquals(1, stats.getWaiting());
+    }
+
+    private List<Long> ids(List<BookingResponseDto> bookings, Status status) {
+        return bookings.stream()
+                .filter(booking -> booking.getStatus() == status)
+                .map(BookingResponseDto::getId)
+                .collect(Collectors.toList());
+    }
+}
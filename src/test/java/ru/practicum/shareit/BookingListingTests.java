@@ -0,0 +1,80 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Listings are cached, so every read below follows one that has already stored the listing it would be
+ * served from.
+ */
+@SpringBootTest
+class BookingListingTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void createdAndApprovedBookingsShowOnTheNextRead() {
+        UserDto owner = fixtures.user("listing-owner");
+        UserDto booker = fixtures.user("listing-booker");
+        ItemResponseDto item = fixtures.item(owner, "listed drill");
+        assertTrue(bookingService.getBookingsByOwner(owner.getId(), "WAITING").isEmpty());
+        assertTrue(bookingService.getBookingsByBooker(booker.getId(), "FUTURE").isEmpty());
+
+        BookingResponseDto booking = fixtures.book(booker, item, 1);
+        List<BookingResponseDto> waiting = bookingService.getBookingsByOwner(owner.getId(), "WAITING");
+        assertEquals(1, waiting.size());
+        assertEquals(booking.getId(), waiting.get(0).getId());
+        assertEquals(1, bookingService.getBookingsByBooker(booker.getId(), "FUTURE").size());
+
+        bookingService.approveBooking(booking.getId(), owner.getId(), true);
+        assertTrue(bookingService.getBookingsByOwner(owner.getId(), "WAITING").isEmpty());
+        List<BookingResponseDto> future = bookingService.getBookingsByBooker(booker.getId(), "FUTURE");
+        assertEquals(1, future.size());
+        assertEquals(Status.APPROVED, future.get(0).getStatus());
+    }
+
+    @Test
+    void rolledBackBookingLeavesTheListingCached() {
+        UserDto owner = fixtures.user("rollback-listing-owner");
+        UserDto booker = fixtures.user("rollback-listing-booker");
+        ItemResponseDto item = fixtures.item(owner, "listed drill");
+        assertTrue(bookingService.getBookingsByOwner(owner.getId(), "ALL").isEmpty());
+        double hits = hits();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            fixtures.book(booker, item, 1);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(bookingService.getBookingsByOwner(owner.getId(), "ALL").isEmpty());
+        assertEquals(hits + 1, hits());
+
+        fixtures.book(booker, item, 1);
+        assertEquals(1, bookingService.getBookingsByOwner(owner.getId(), "ALL").size());
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "bookings.listing").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
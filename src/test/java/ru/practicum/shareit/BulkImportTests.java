@@ -0,0 +1,94 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BulkImportTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void rowRejectedByTheDatabaseFailsAlone() throws Exception {
+        UserDto owner = fixtures.user("import-owner");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String name = i == 3 ? "x".repeat(300) : "imported drill " + i;
+            rows.add(Map.of("name", name, "description", "imported drill", "available", true));
+        }
+
+        JsonNode report = read(post("/import/items").header("X-Sharer-User-Id", owner.getId()), rows);
+
+        assertEquals(5, report.get("total").asLong());
+        assertEquals(4, report.get("imported").asLong());
+        assertEquals(1, report.get("failed").asLong());
+        assertEquals(1, report.get("errors").size());
+        assertEquals(3, report.get("errors").get(0).get("row").asLong());
+    }
+
+    @Test
+    void emailsTakenBeforeOrEarlierInTheFileAreRejected() throws Exception {
+        JsonNode first = read(post("/import/users"), List.of(
+                Map.of("name", "imported", "email", "imported-taken@example.com")));
+        assertEquals(1, first.get("imported").asLong());
+
+        JsonNode report = read(post("/import/users"), List.of(
+                Map.of("name", "imported", "email", "imported-taken@example.com"),
+                Map.of("name", "imported", "email", "imported-twice@example.com"),
+                Map.of("name", "imported", "email", "imported-twice@example.com"),
+                Map.of("name", "imported", "email", "imported-once@example.com")));
+
+        assertEquals(2, report.get("imported").asLong());
+        assertEquals(2, report.get("failed").asLong());
+        assertEquals(1, report.get("errors").get(0).get("row").asLong());
+        assertEquals(3, report.get("errors").get(1).get("row").asLong());
+    }
+
+    @Test
+    void reportDescribesOnlyTheFirstErrors() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            rows.add(Map.of("name", "", "email", "blank-" + i + "@example.com"));
+        }
+
+        JsonNode report = read(post("/import/users"), rows);
+
+        assertEquals(0, report.get("imported").asLong());
+        assertEquals(150, report.get("failed").asLong());
+        assertEquals(100, report.get("errors").size());
+    }
+
+    private JsonNode read(MockHttpServletRequestBuilder request, List<? extends Map<String, ?>> rows)
+            throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (Map<String, ?> row : rows) {
+            body.append(objectMapper.writeValueAsString(row)).append('\n');
+        }
+        MockHttpServletResponse response = mvc.perform(request.contentType(MediaType.APPLICATION_NDJSON)
+                .content(body.toString())).andReturn().getResponse();
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
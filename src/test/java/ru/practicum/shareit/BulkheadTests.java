@@ -0,0 +1,92 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.ItemService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Searches are held inside the service until the test lets them go, so the search group stays full for as
+ * long as it needs to.
+ */
+@SpringBootTest(properties = {
+        "shareit.bulkhead.groups.search.max-concurrent=2",
+        "shareit.bulkhead.groups.search.max-queue=0",
+        "spring.datasource.url=jdbc:h2:mem:bulkhead",
+        "spring.jpa.properties.hibernate.javax.cache.uri=bulkhead.conf"})
+@AutoConfigureMockMvc
+class BulkheadTests {
+
+    private static final int SEARCHES = 2;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @SpyBean
+    private ItemService itemService;
+
+    @Test
+    void fullSearchGroupRejectsSearchesButNotWrites() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(itemService).searchItem(any(), any(), any());
+        ExecutorService pool = Executors.newFixedThreadPool(SEARCHES);
+        List<Future<Integer>> searches = new ArrayList<>();
+        try {
+            for (int i = 0; i < SEARCHES; i++) {
+                searches.add(pool.submit(() -> search().getStatus()));
+            }
+            awaitActiveSearches(SEARCHES);
+
+            assertEquals(503, search().getStatus());
+            assertEquals(200, mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\": \"bulkhead\", \"email\": \"bulkhead@example.com\"}"))
+                    .andReturn().getResponse().getStatus());
+
+            release.countDown();
+            for (Future<Integer> status : searches) {
+                assertEquals(200, status.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(200, search().getStatus());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private MockHttpServletResponse search() throws Exception {
+        return mvc.perform(get("/items/search").param("text", "drill")).andReturn().getResponse();
+    }
+
+    private void awaitActiveSearches(int active) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("shareit.bulkhead.active").tag("group", "search").gauge().value() < active) {
+            assertTrue(System.nanoTime() < deadline, "searches did not start");
+            Thread.sleep(10);
+        }
+    }
+}
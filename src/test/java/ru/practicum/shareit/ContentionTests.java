@@ -0,0 +1,277 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static java.time.format.DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Hammers the write endpoints from many threads at once and checks what must survive the races, then prints
+ * throughput and the share of requests turned away. Scale with {@code -Dcontention.threads} and
+ * {@code -Dcontention.rounds}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ContentionTests {
+
+    private static final int THREADS = Integer.getInteger("contention.threads", 8);
+    private static final int ROUNDS = Integer.getInteger("contention.rounds", 20);
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Users move between a few shared emails; a taken email is a conflict, never an error or a duplicate,
+     * and every user ends up with the last email it was given.
+     */
+    @Test
+    void emailChanges() throws Exception {
+        long[] userIds = new long[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            userIds[t] = user("email-" + t);
+        }
+        String[] lastEmails = new String[THREADS];
+        Counts counts = hammer("emails", THREADS, (t, c) -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                String email = "contended-" + (t + r) % Math.max(1, THREADS / 2) + "@example.com";
+                int status = c.record(send(patch("/users/{id}", userIds[t]), Map.of("email", email)));
+                if (status == 200) {
+                    lastEmails[t] = email;
+                }
+            }
+        });
+
+        assertEquals(0, counts.failed);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from (select email from users " +
+                "group by email having count(*) > 1) t", Long.class));
+        for (int t = 0; t < THREADS; t++) {
+            if (lastEmails[t] != null) {
+                assertEquals(lastEmails[t], read(get("/users/{id}", userIds[t])).get("email").asText());
+            }
+        }
+    }
+
+    /**
+     * Three threads per item, each changing its own field: whatever the interleaving, each field ends up
+     * with the last value its thread wrote.
+     */
+    @Test
+    void itemFieldUpdates() throws Exception {
+        long ownerId = user("item-owner");
+        int items = Math.max(1, THREADS / 3);
+        long[] itemIds = new long[items];
+        for (int i = 0; i < items; i++) {
+            itemIds[i] = item(ownerId, "contended item " + i);
+        }
+        Counts counts = hammer("items", items * 3, (t, c) -> {
+            long itemId = itemIds[t / 3];
+            for (int r = 0; r < ROUNDS; r++) {
+                Map<String, Object> change;
+                switch (t % 3) {
+                    case 0:
+                        change = Map.of("name", "name-" + r);
+                        break;
+                    case 1:
+                        change = Map.of("description", "description-" + r);
+                        break;
+                    default:
+                        change = Map.of("available", r % 2 == 0);
+                }
+                c.record(send(patch("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId), change));
+            }
+        });
+
+        assertEquals(0, counts.failed);
+        assertEquals(0, counts.rejected);
+        for (long itemId : itemIds) {
+            JsonNode item = read(get("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId));
+            assertEquals("name-" + (ROUNDS - 1), item.get("name").asText());
+            assertEquals("description-" + (ROUNDS - 1), item.get("description").asText());
+            assertEquals((ROUNDS - 1) % 2 == 0, item.get("available").asBoolean());
+        }
+    }
+
+    /**
+     * Threads read an item and write it back with {@code If-Match}: a write lands only on the version it read,
+     * so the version grows by exactly the number of writes that succeeded and the others get 412.
+     */
+    @Test
+    void conditionalItemUpdates() throws Exception {
+        long ownerId = user("etag-owner");
+        long itemId = item(ownerId, "contended etag item");
+        long initial = version(mvc.perform(get("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId))
+                .andReturn().getResponse());
+        Counts counts = hammer("if-match", THREADS, (t, c) -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                String etag = mvc.perform(get("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId))
+                        .andReturn().getResponse().getHeader("ETag");
+                c.record(send(patch("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId)
+                        .header("If-Match", etag), Map.of("description", "thread-" + t + "-" + r)));
+            }
+        });
+
+        assertEquals(0, counts.failed);
+        MockHttpServletResponse current = mvc.perform(get("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId))
+                .andReturn().getResponse();
+        assertEquals(initial + counts.ok, version(current));
+        assertEquals(412, send(patch("/items/{id}", itemId).header("X-Sharer-User-Id", ownerId)
+                .header("If-Match", "\"" + initial + "\""), Map.of("description", "stale")));
+    }
+
+    /**
+     * Every thread tries to approve every booking: each booking is approved exactly once, and the owner
+     * counters, kept up to date from one event per transition, agree.
+     */
+    @Test
+    void concurrentApprovals() throws Exception {
+        long ownerId = user("approval-owner");
+        long bookerId = user("approval-booker");
+        long itemId = item(ownerId, "contended approval item");
+        long[] bookingIds = new long[ROUNDS];
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int r = 0; r < ROUNDS; r++) {
+            bookingIds[r] = read(post("/bookings").header("X-Sharer-User-Id", bookerId)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("itemId", itemId,
+                            "start", ISO_LOCAL_DATE_TIME.format(start.plusDays(r)),
+                            "end", ISO_LOCAL_DATE_TIME.format(start.plusDays(r).plusHours(1))))))
+                    .get("id").asLong();
+        }
+        read(get("/bookings/owner/stats").header("X-Sharer-User-Id", ownerId));
+        AtomicIntegerArray approvals = new AtomicIntegerArray(ROUNDS);
+        Counts counts = hammer("approvals", THREADS, (t, c) -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                if (c.record(send(patch("/bookings/{id}", bookingIds[r]).param("approved", "true")
+                        .header("X-Sharer-User-Id", ownerId), null)) == 200) {
+                    approvals.incrementAndGet(r);
+                }
+            }
+        });
+
+        assertEquals(0, counts.failed);
+        for (int r = 0; r < ROUNDS; r++) {
+            assertEquals(1, approvals.get(r), "approvals of booking " + bookingIds[r]);
+        }
+        JsonNode stats = read(get("/bookings/owner/stats").header("X-Sharer-User-Id", ownerId));
+        assertEquals(ROUNDS, stats.get("approved").asInt());
+        assertEquals(0, stats.get("waiting").asInt());
+    }
+
+    private Counts hammer(String scenario, int threads, Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Counts>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                Counts counts = new Counts();
+                start.await();
+                worker.run(thread, counts);
+                return counts;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        Counts total = new Counts();
+        try {
+            for (Future<Counts> future : futures) {
+                total.add(future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        int requests = total.ok + total.rejected + total.failed;
+        System.out.printf("%-9s %2d threads, %5d requests, %7.0f req/s, %5.1f%% rejected, %d failed%n", scenario,
+                threads, requests, requests / seconds, 100.0 * total.rejected / requests, total.failed);
+        return total;
+    }
+
+    private long version(MockHttpServletResponse response) {
+        assertEquals(200, response.getStatus());
+        return Long.parseLong(response.getHeader("ETag").replace("\"", ""));
+    }
+
+    private long user(String name) throws Exception {
+        return read(post("/users").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("name", name,
+                        "email", name + "-" + System.nanoTime() + "@example.com")))).get("id").asLong();
+    }
+
+    private long item(long ownerId, String name) throws Exception {
+        return read(post("/items").header("X-Sharer-User-Id", ownerId).contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("name", name, "description", name,
+                        "available", true)))).get("id").asLong();
+    }
+
+    private JsonNode read(RequestBuilder request) throws Exception {
+        MockHttpServletResponse response = mvc.perform(request).andReturn().getResponse();
+        assertEquals(200, response.getStatus(), response.getContentAsString());
+        return objectMapper.readTree(response.getContentAsString());
+    }
+
+    private int send(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+        }
+        return mvc.perform(request).andReturn().getResponse().getStatus();
+    }
+
+    private interface Worker {
+
+        void run(int thread, Counts counts) throws Exception;
+    }
+
+    private static class Counts {
+
+        private int ok;
+        private int rejected;
+        private int failed;
+
+        int record(int status) {
+            if (status < 300) {
+                ok++;
+            } else if (status < 500) {
+                rejected++;
+            } else {
+                failed++;
+            }
+            return status;
+        }
+
+        void add(Counts other) {
+            ok += other.ok;
+            rejected += other.rejected;
+            failed += other.failed;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.comments.dto.CommentResponseDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hard deletes remove the dependants of a user or an item with one statement per table.
+ */
+@SpringBootTest
+class DeletionTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deletingAUserRemovesTheirItemsBookingsAndComments() {
+        UserDto owner = fixtures.user("hard-owner");
+        UserDto booker = fixtures.user("hard-booker");
+        ItemResponseDto kept = fixtures.item(owner, "kept drill");
+        ItemResponseDto otherKept = fixtures.item(owner, "kept saw");
+        BookingResponseDto booking = fixtures.pastBooking(owner, booker, kept);
+        CommentResponseDto comment = fixtures.comment(booker, kept);
+        BookingResponseDto otherBooking = fixtures.pastBooking(owner, booker, otherKept);
+
+        userService.deleteUser(booker.getId());
+
+        assertEquals(0, count("users", booker.getId()));
+        assertEquals(0, count("bookings", booking.getId()) + count("bookings", otherBooking.getId()));
+        assertEquals(0, count("comments", comment.getId()));
+        assertEquals(1, count("items", kept.getId()));
+
+        userService.deleteUser(owner.getId());
+
+        assertEquals(0, count("users", owner.getId()));
+        assertEquals(0, count("items", kept.getId()) + count("items", otherKept.getId()));
+    }
+
+    @Test
+    void deletingAnItemRemovesItsBookingsAndComments() {
+        UserDto owner = fixtures.user("hard-item-owner");
+        UserDto booker = fixtures.user("hard-item-booker");
+        ItemResponseDto item = fixtures.item(owner, "deleted ladder");
+        BookingResponseDto booking = fixtures.pastBooking(owner, booker, item);
+        CommentResponseDto comment = fixtures.comment(booker, item);
+
+        itemService.deleteItem(item.getId());
+
+        assertEquals(0, count("items", item.getId()));
+        assertEquals(0, count("bookings", booking.getId()));
+        assertEquals(0, count("comments", comment.getId()));
+        assertEquals(1, count("users", booker.getId()));
+    }
+
+    private long count(String table, Long id) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where id = ?", Long.class, id);
+    }
+}
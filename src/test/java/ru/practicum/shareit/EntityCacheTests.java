@@ -0,0 +1,117 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Users and items are read through the second-level cache. Every repository call below runs in a session of
+ * its own, so only that cache can serve a repeated read.
+ */
+@SpringBootTest
+class EntityCacheTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void repeatedFindByIdIsACacheHit() {
+        UserDto user = fixtures.user("cached-user");
+        ItemResponseDto item = fixtures.item(user, "cached drill");
+        entityManagerFactory.getCache().evict(User.class, user.getId());
+        entityManagerFactory.getCache().evict(Item.class, item.getId());
+        long userHits = statistics("users").getHitCount();
+        long userMisses = statistics("users").getMissCount();
+        long itemHits = statistics("items").getHitCount();
+        long itemMisses = statistics("items").getMissCount();
+
+        userRepository.findById(user.getId());
+        assertEquals(userMisses + 1, statistics("users").getMissCount());
+        userRepository.findById(user.getId());
+        userRepository.findById(user.getId());
+        assertEquals(userHits + 2, statistics("users").getHitCount());
+        assertEquals(userMisses + 1, statistics("users").getMissCount());
+
+        itemRepository.findById(item.getId());
+        assertEquals(itemMisses + 1, statistics("items").getMissCount());
+        itemRepository.findById(item.getId());
+        assertEquals(itemHits + 1, statistics("items").getHitCount());
+        assertEquals(itemMisses + 1, statistics("items").getMissCount());
+    }
+
+    @Test
+    void updatesReplaceTheCachedState() {
+        UserDto user = fixtures.user("recached-user");
+        ItemResponseDto item = fixtures.item(user, "recached drill");
+        userRepository.findById(user.getId());
+        itemRepository.findById(item.getId());
+
+        UserDto userUpdate = new UserDto();
+        userUpdate.setName("recached renamed");
+        userService.updateUser(userUpdate, user.getId(), null);
+        ItemRequestDto itemUpdate = new ItemRequestDto();
+        itemUpdate.setName("recached saw");
+        itemService.updateItem(itemUpdate, user.getId(), item.getId(), null);
+
+        assertEquals("recached renamed", userRepository.findById(user.getId()).orElseThrow().getName());
+        assertEquals("recached saw", itemRepository.findById(item.getId()).orElseThrow().getName());
+    }
+
+    /**
+     * A read-write cache keeps a lock in place of a deleted entry until it times out, so what counts is that the
+     * reads after a delete are no hits.
+     */
+    @Test
+    void hardDeletesAreNotServedFromTheCache() {
+        UserDto owner = fixtures.user("uncached-owner");
+        ItemResponseDto deletedItem = fixtures.item(owner, "uncached drill");
+        ItemResponseDto ownedItem = fixtures.item(owner, "uncached saw");
+        userRepository.findById(owner.getId());
+        itemRepository.findById(deletedItem.getId());
+        itemRepository.findById(ownedItem.getId());
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, deletedItem.getId()));
+
+        itemService.deleteItem(deletedItem.getId());
+        long itemHits = statistics("items").getHitCount();
+        assertTrue(itemRepository.findById(deletedItem.getId()).isEmpty());
+        assertEquals(itemHits, statistics("items").getHitCount());
+
+        userService.deleteUser(owner.getId());
+        long userHits = statistics("users").getHitCount();
+        itemHits = statistics("items").getHitCount();
+        assertTrue(userRepository.findById(owner.getId()).isEmpty());
+        assertTrue(itemRepository.findById(ownedItem.getId()).isEmpty());
+        assertEquals(userHits, statistics("users").getHitCount());
+        assertEquals(itemHits, statistics("items").getHitCount());
+    }
+
+    private CacheRegionStatistics statistics(String region) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getDomainDataRegionStatistics(region);
+    }
+}
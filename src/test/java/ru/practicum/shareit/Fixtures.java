@@ -0,0 +1,75 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.comments.dto.CommentRequestDto;
+import ru.practicum.shareit.comments.dto.CommentResponseDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Users, items, bookings and comments for the tests, created through the services, so events and caches see
+ * them as they see requests. Emails are derived from the names, which therefore have to be unique.
+ */
+@Component
+@RequiredArgsConstructor
+public class Fixtures {
+
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+
+    public UserDto user(String name) {
+        UserDto dto = new UserDto();
+        dto.setName(name);
+        dto.setEmail(name + "@example.com");
+        return userService.addUser(dto);
+    }
+
+    public ItemResponseDto item(UserDto owner, String name) {
+        ItemRequestDto dto = new ItemRequestDto();
+        dto.setName(name);
+        dto.setDescription(name);
+        dto.setAvailable(true);
+        return itemService.addItem(dto, owner.getId());
+    }
+
+    /**
+     * A WAITING booking of one hour, starting {@code daysAhead} days from now on a whole second.
+     */
+    public BookingResponseDto book(UserDto booker, ItemResponseDto item, int daysAhead) {
+        LocalDateTime start = LocalDateTime.now().plusDays(daysAhead).truncatedTo(ChronoUnit.SECONDS);
+        return book(booker, item, start, start.plusHours(1));
+    }
+
+    public BookingResponseDto book(UserDto booker, ItemResponseDto item, LocalDateTime start, LocalDateTime end) {
+        BookingRequestDto dto = new BookingRequestDto();
+        dto.setItemId(item.getId());
+        dto.setStart(start);
+        dto.setEnd(end);
+        return bookingService.createBooking(dto, booker.getId());
+    }
+
+    /**
+     * An approved booking that ended two days ago, which lets the booker comment on the item.
+     */
+    public BookingResponseDto pastBooking(UserDto owner, UserDto booker, ItemResponseDto item) {
+        BookingResponseDto booking = book(booker, item, -2);
+        return bookingService.approveBooking(booking.getId(), owner.getId(), true);
+    }
+
+    public CommentResponseDto comment(UserDto author, ItemResponseDto item) {
+        CommentRequestDto dto = new CommentRequestDto();
+        dto.setText("worked fine");
+        return itemService.addComment(dto, item.getId(), author.getId());
+    }
+}
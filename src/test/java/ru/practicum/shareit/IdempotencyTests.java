@@ -0,0 +1,97 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyTests {
+
+    private static final int DUPLICATES = 2;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Duplicates sent at the same time run once, and every one of them, as well as a later retry, gets the
+     * response of that run, ETag included.
+     */
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        long ownerId = objectMapper.readTree(mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("name", "idempotent-owner",
+                        "email", "idempotent-owner@example.com")))).andReturn().getResponse().getContentAsString())
+                .get("id").asLong();
+        String body = objectMapper.writeValueAsString(Map.of("name", "idempotent drill",
+                "description", "idempotent drill", "available", true));
+
+        ExecutorService pool = Executors.newFixedThreadPool(DUPLICATES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < DUPLICATES; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return mvc.perform(create(ownerId, body)).andReturn().getResponse();
+                }));
+            }
+            start.countDown();
+            List<MockHttpServletResponse> responses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : futures) {
+                responses.add(future.get());
+            }
+            responses.add(mvc.perform(create(ownerId, body)).andReturn().getResponse());
+
+            MockHttpServletResponse first = responses.get(0);
+            assertEquals(200, first.getStatus(), first.getContentAsString());
+            assertNotNull(first.getHeader(HttpHeaders.ETAG));
+            long replayed = 0;
+            for (MockHttpServletResponse response : responses) {
+                assertEquals(first.getStatus(), response.getStatus());
+                assertEquals(first.getContentAsString(), response.getContentAsString());
+                assertEquals(first.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.ETAG));
+                if ("true".equals(response.getHeader("Idempotent-Replayed"))) {
+                    replayed++;
+                }
+            }
+            assertEquals(DUPLICATES, replayed);
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from items where owner_id = ?",
+                    Long.class, ownerId));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private MockHttpServletRequestBuilder create(long ownerId, String body) {
+        return post("/items")
+                .header("X-Sharer-User-Id", ownerId)
+                .header("Idempotency-Key", "concurrent-duplicates")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.IntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemAvailabilityTests {
+
+    private static final LocalDateTime WINDOW_START = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.HOURS);
+    private static final LocalDateTime WINDOW_END = at(10);
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void bookingsMergeAndAreClippedToTheWindow() {
+        UserDto booker = fixtures.user("availability-booker");
+        ItemResponseDto item = fixtures.item(fixtures.user("availability-owner"), "available drill");
+        fixtures.book(booker, item, at(-2), at(1));
+        fixtures.book(booker, item, at(2), at(4));
+        fixtures.book(booker, item, at(3), at(5));
+        fixtures.book(booker, item, at(5), at(6));
+        fixtures.book(booker, item, at(8), at(12));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(item.getId(), WINDOW_START, WINDOW_END);
+
+        assertEquals(List.of(interval(0, 1), interval(2, 6), interval(8, 10)), availability.getBusy());
+        assertEquals(List.of(interval(1, 2), interval(6, 8)), availability.getFree());
+    }
+
+    @Test
+    void onlyWaitingAndApprovedBookingsBlock() {
+        UserDto owner = fixtures.user("blocking-owner");
+        UserDto booker = fixtures.user("blocking-booker");
+        ItemResponseDto item = fixtures.item(owner, "blocked drill");
+        Long rejected = fixtures.book(booker, item, at(1), at(2)).getId();
+        bookingService.approveBooking(rejected, owner.getId(), false);
+        Long canceled = fixtures.book(booker, item, at(3), at(4)).getId();
+        jdbcTemplate.update("update bookings set status = 'CANCELED' where id = ?", canceled);
+        Long approved = fixtures.book(booker, item, at(5), at(6)).getId();
+        bookingService.approveBooking(approved, owner.getId(), true);
+        fixtures.book(booker, item, at(7), at(8));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(item.getId(), WINDOW_START, WINDOW_END);
+
+        assertEquals(List.of(interval(5, 6), interval(7, 8)), availability.getBusy());
+        assertEquals(List.of(interval(0, 5), interval(6, 7), interval(8, 10)), availability.getFree());
+    }
+
+    @Test
+    void windowDefaultsToAMonth() {
+        ItemResponseDto item = fixtures.item(fixtures.user("default-window-owner"), "default window drill");
+
+        ItemAvailabilityDto fromOnly = itemService.getAvailability(item.getId(), WINDOW_START, null);
+        assertEquals(WINDOW_START.plusMonths(1), fromOnly.getTo());
+        assertEquals(List.of(), fromOnly.getBusy());
+        assertEquals(List.of(new IntervalDto(WINDOW_START, WINDOW_START.plusMonths(1))), fromOnly.getFree());
+
+        LocalDateTime before = LocalDateTime.now();
+        ItemAvailabilityDto fromNow = itemService.getAvailability(item.getId(), null, null);
+        assertFalse(fromNow.getFrom().isBefore(before));
+        assertEquals(fromNow.getFrom().plusMonths(1), fromNow.getTo());
+    }
+
+    @Test
+    void emptyOrReversedWindowIsABadRequest() throws Exception {
+        ItemResponseDto item = fixtures.item(fixtures.user("bad-window-owner"), "bad window drill");
+
+        assertEquals(400, availabilityStatus(item, WINDOW_START, WINDOW_START));
+        assertEquals(400, availabilityStatus(item, WINDOW_END, WINDOW_START));
+        assertEquals(200, availabilityStatus(item, WINDOW_START, WINDOW_END));
+    }
+
+    private int availabilityStatus(ItemResponseDto item, LocalDateTime from, LocalDateTime to) throws Exception {
+        return mvc.perform(get("/items/{itemId}/availability", item.getId())
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private static LocalDateTime at(int hours) {
+        return WINDOW_START.plusHours(hours);
+    }
+
+    private static IntervalDto interval(int startHours, int endHours) {
+        return new IntervalDto(at(startHours), at(endHours));
+    }
+}
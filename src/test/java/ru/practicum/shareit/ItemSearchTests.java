@@ -0,0 +1,150 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Plain text searches are cached, so the invalidation tests search once before every write, to have the results
+ * stored. Searches within a window always read the database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemSearchTests {
+
+    private static final LocalDateTime WINDOW_START = LocalDateTime.now().plusDays(20).truncatedTo(ChronoUnit.HOURS);
+    private static final LocalDateTime WINDOW_END = WINDOW_START.plusHours(4);
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void spellingsOfOneTextShareTheCachedResults() {
+        UserDto owner = fixtures.user("spelling-owner");
+        ItemResponseDto item = fixtures.item(owner, "spelled hammer drill");
+        assertEquals(List.of(item.getId()), ids(itemService.searchItem("spelled hammer", null, null)));
+        double hits = hits();
+
+        assertEquals(List.of(item.getId()), ids(itemService.searchItem("  SPELLED \t hammer ", null, null)));
+        assertEquals(hits + 1, hits());
+    }
+
+    @Test
+    void itemWriteInvalidatesCachedSearch() {
+        UserDto owner = fixtures.user("search-item-owner");
+        ItemResponseDto item = fixtures.item(owner, "searched chisel");
+        assertEquals(List.of(item.getId()), ids(itemService.searchItem("searched chisel", null, null)));
+
+        ItemRequestDto update = new ItemRequestDto();
+        update.setAvailable(false);
+        itemService.updateItem(update, owner.getId(), item.getId(), null);
+
+        assertEquals(List.of(), itemService.searchItem("searched chisel", null, null));
+    }
+
+    @Test
+    void ownerUpdateInvalidatesCachedSearch() {
+        UserDto owner = fixtures.user("search-user-owner");
+        fixtures.item(owner, "searched plane");
+        assertEquals("search-user-owner", itemService.searchItem("searched plane", null, null).get(0)
+                .getUser().getName());
+
+        UserDto update = new UserDto();
+        update.setName("renamed search owner");
+        userService.updateUser(update, owner.getId(), null);
+
+        assertEquals("renamed search owner", itemService.searchItem("searched plane", null, null).get(0)
+                .getUser().getName());
+    }
+
+    @Test
+    void windowedSearchSkipsItemsBookedInTheWindow() {
+        UserDto owner = fixtures.user("window-owner");
+        UserDto booker = fixtures.user("window-booker");
+        ItemResponseDto waiting = fixtures.item(owner, "windowed lathe");
+        fixtures.book(booker, waiting, WINDOW_START.minusHours(1), WINDOW_START.plusHours(1));
+        ItemResponseDto approved = fixtures.item(owner, "windowed lathe");
+        Long approvedBooking = fixtures.book(booker, approved, WINDOW_START.plusHours(1), WINDOW_END).getId();
+        bookingService.approveBooking(approvedBooking, owner.getId(), true);
+        ItemResponseDto rejected = fixtures.item(owner, "windowed lathe");
+        Long rejectedBooking = fixtures.book(booker, rejected, WINDOW_START, WINDOW_END).getId();
+        bookingService.approveBooking(rejectedBooking, owner.getId(), false);
+        ItemResponseDto canceled = fixtures.item(owner, "windowed lathe");
+        Long canceledBooking = fixtures.book(booker, canceled, WINDOW_START, WINDOW_END).getId();
+        jdbcTemplate.update("update bookings set status = 'CANCELED' where id = ?", canceledBooking);
+        ItemResponseDto before = fixtures.item(owner, "windowed lathe");
+        fixtures.book(booker, before, WINDOW_START.minusHours(2), WINDOW_START);
+        ItemResponseDto after = fixtures.item(owner, "windowed lathe");
+        fixtures.book(booker, after, WINDOW_END, WINDOW_END.plusHours(2));
+
+        assertEquals(List.of(rejected.getId(), canceled.getId(), before.getId(), after.getId()),
+                ids(itemService.searchItem("windowed lathe", WINDOW_START, WINDOW_END)));
+        assertEquals(6, itemService.searchItem("windowed lathe", null, null).size());
+    }
+
+    @Test
+    void wildcardsInTheTextMatchThemselves() {
+        UserDto owner = fixtures.user("wildcard-owner");
+        ItemResponseDto percent = fixtures.item(owner, "wildcard 100% drill");
+        fixtures.item(owner, "wildcard 1000 drill");
+        ItemResponseDto underscore = fixtures.item(owner, "wildcard tool_kit");
+        fixtures.item(owner, "wildcard toolskit");
+        ItemResponseDto backslash = fixtures.item(owner, "wildcard c:\\saw");
+
+        assertEquals(List.of(percent.getId()), ids(itemService.searchItem("wildcard 100%", null, null)));
+        assertEquals(List.of(underscore.getId()), ids(itemService.searchItem("wildcard tool_", null, null)));
+        assertEquals(List.of(backslash.getId()), ids(itemService.searchItem("c:\\", null, null)));
+        assertEquals(List.of(percent.getId()), ids(itemService.searchItem("wildcard 100%", WINDOW_START,
+                WINDOW_END)));
+    }
+
+    @Test
+    void windowWithOneEndIsABadRequest() throws Exception {
+        assertEquals(400, mvc.perform(get("/items/search").param("text", "drill")
+                .param("start", WINDOW_START.toString())).andReturn().getResponse().getStatus());
+        assertEquals(400, mvc.perform(get("/items/search").param("text", "drill")
+                .param("end", WINDOW_END.toString())).andReturn().getResponse().getStatus());
+        assertEquals(400, mvc.perform(get("/items/search").param("text", "drill")
+                .param("start", WINDOW_END.toString())
+                .param("end", WINDOW_START.toString())).andReturn().getResponse().getStatus());
+    }
+
+    private static List<Long> ids(List<ItemResponseDto> items) {
+        return items.stream().map(ItemResponseDto::getId).collect(Collectors.toList());
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "items.search").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.bulk.BulkImportService;
+import ru.practicum.shareit.bulk.ImportFormat;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The suggest index is only ever changed by the events of committed writes.
+ */
+@SpringBootTest
+class ItemSuggestTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Test
+    void itemWritesReachTheIndex() {
+        UserDto owner = fixtures.user("suggest-owner");
+        ItemResponseDto item = fixtures.item(owner, "Suggested Anvil");
+        assertEquals(List.of("Suggested Anvil"), itemService.suggestNames("suggested a"));
+
+        itemService.updateItem(rename("Suggested Bellows"), owner.getId(), item.getId(), null);
+        assertEquals(List.of(), itemService.suggestNames("suggested a"));
+        assertEquals(List.of("Suggested Bellows"), itemService.suggestNames("suggested b"));
+
+        ItemRequestDto unavailable = new ItemRequestDto();
+        unavailable.setAvailable(false);
+        itemService.updateItem(unavailable, owner.getId(), item.getId(), null);
+        assertEquals(List.of(), itemService.suggestNames("suggested b"));
+
+        ItemRequestDto available = new ItemRequestDto();
+        available.setAvailable(true);
+        itemService.updateItem(available, owner.getId(), item.getId(), null);
+        assertEquals(List.of("Suggested Bellows"), itemService.suggestNames("suggested b"));
+
+        itemService.deleteItem(item.getId());
+        assertEquals(List.of(), itemService.suggestNames("suggested b"));
+    }
+
+    @Test
+    void ownerChangesReloadTheOwnerItems() throws Exception {
+        UserDto owner = fixtures.user("reloaded-owner");
+        UserDto other = fixtures.user("reloaded-other");
+        fixtures.item(owner, "reloaded crowbar");
+        fixtures.item(other, "reloaded crowbar");
+
+        String rows = "{\"name\":\"reloaded clamp\",\"description\":\"clamp\",\"available\":true}\n" +
+                "{\"name\":\"reloaded crate\",\"description\":\"crate\",\"available\":false}\n";
+        bulkImportService.importItems(new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)),
+                ImportFormat.NDJSON, owner.getId());
+        assertEquals(List.of("reloaded crowbar", "reloaded clamp"), itemService.suggestNames("reloaded c"));
+
+        userService.deleteUser(owner.getId());
+        assertEquals(List.of("reloaded crowbar"), itemService.suggestNames("reloaded c"));
+
+        userService.deleteUser(other.getId());
+        assertEquals(List.of(), itemService.suggestNames("reloaded c"));
+    }
+
+    private static ItemRequestDto rename(String name) {
+        ItemRequestDto dto = new ItemRequestDto();
+        dto.setName(name);
+        return dto;
+    }
+}
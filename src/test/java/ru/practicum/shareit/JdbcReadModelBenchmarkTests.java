@@ -0,0 +1,154 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingReadRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemReadRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserReadRepository;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * CPU time and allocation per call of the owner listings, JPA entities plus mappers against the JDBC read model.
+ * Run with {@code mvn test -Dtest=JdbcReadModelBenchmarkTests -Dbench=true}.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class JdbcReadModelBenchmarkTests {
+
+    private static final int USERS = 500;
+    private static final int ITEMS = 50;
+    private static final int BOOKINGS = 2000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    private UserReadRepository userReadRepository;
+    @Autowired
+    private ItemReadRepository itemReadRepository;
+    @Autowired
+    private BookingReadRepository bookingReadRepository;
+
+    private Long ownerId;
+
+    @BeforeAll
+    void seed() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "user" + i, "bench-user" + i + "@mail.ru"));
+        }
+        users = userRepository.saveAll(users);
+        User owner = users.get(0);
+        ownerId = owner.getId();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = new Item();
+            item.setName("item" + i);
+            item.setDescription("bench item " + i);
+            item.setAvailable(true);
+            item.setUser(owner);
+            items.add(item);
+        }
+        items = itemRepository.saveAll(items);
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = new Booking();
+            booking.setItem(items.get(i % ITEMS));
+            booking.setOwnerId(items.get(i % ITEMS).getUser().getId());
+            booking.setUser(users.get(1 + i % (USERS - 1)));
+            booking.setStart(now.plusHours(i - BOOKINGS / 2));
+            booking.setEnd(now.plusHours(i - BOOKINGS / 2 + 1));
+            booking.setStatus(Status.values()[i % Status.values().length]);
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+    }
+
+    @Test
+    void ownerListings() {
+        compare("GET /bookings/owner", () -> {
+            List<BookingResponseDto> dtos = bookingRepository.findAllByOwner(ownerId)
+                    .stream()
+                    .map(BookingMapper.BOOKING_MAPPER::toDto)
+                    .collect(Collectors.toList());
+            archivedBookingRepository.findAll()
+                    .stream()
+                    .filter(a -> a.getOwnerId().equals(ownerId))
+                    .map(BookingMapper.BOOKING_MAPPER::fromArchive)
+                    .map(BookingMapper.BOOKING_MAPPER::toDto)
+                    .forEach(dtos::add);
+            dtos.sort(Comparator.comparing(BookingResponseDto::getStart).reversed());
+            return dtos;
+        }, () -> bookingReadRepository.findAllByOwner(ownerId));
+        compare("GET /items", () -> itemRepository.findAllByUser_Id(ownerId)
+                .stream()
+                .map(ItemMapper.ITEM_MAPPER::toDto)
+                .sorted(Comparator.comparing(ItemResponseDto::getId))
+                .collect(Collectors.toList()), () -> itemReadRepository.findAllByOwner(ownerId));
+        compare("GET /users", () -> userRepository.findAll()
+                .stream()
+                .map(UserMapper.USER_MAPPER::toDto)
+                .sorted(Comparator.comparing(UserDto::getId))
+                .collect(Collectors.toList()), () -> userReadRepository.findAll());
+    }
+
+    private void compare(String listing, Supplier<List<?>> jpa, Supplier<List<?>> jdbc) {
+        long[] jpaCost = measure(jpa);
+        long[] jdbcCost = measure(jdbc);
+        System.out.printf("%s per call: jpa %d us cpu, %d KB allocated; jdbc %d us cpu, %d KB allocated%n",
+                listing, jpaCost[0] / 1000, jpaCost[1] / 1024, jdbcCost[0] / 1000, jdbcCost[1] / 1024);
+    }
+
+    private long[] measure(Supplier<List<?>> listing) {
+        for (int i = 0; i < WARMUP; i++) {
+            listing.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            listing.get();
+        }
+        return new long[]{
+                (threads.getCurrentThreadCpuTime() - cpu) / ITERATIONS,
+                (threads.getThreadAllocatedBytes(threadId) - allocated) / ITERATIONS
+        };
+    }
+}
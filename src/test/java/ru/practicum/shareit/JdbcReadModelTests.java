@@ -0,0 +1,208 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingReadRepository;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.ItemReadRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.paging.ListingPage;
+import ru.practicum.shareit.user.UserReadRepository;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The JDBC read model has to return exactly what the JPA repositories and mappers return for the same rows.
+ */
+@SpringBootTest
+@Transactional
+class JdbcReadModelTests {
+
+    private static final Comparator<BookingResponseDto> BY_START_DESC = Comparator
+            .comparing(BookingResponseDto::getStart)
+            .thenComparing(BookingResponseDto::getId)
+            .reversed();
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    private UserReadRepository userReadRepository;
+    @Autowired
+    private ItemReadRepository itemReadRepository;
+    @Autowired
+    private BookingReadRepository bookingReadRepository;
+
+    private LocalDateTime now;
+    private User owner;
+    private List<Item> items;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        owner = userRepository.save(new User(null, "owner", "read-model-owner@mail.ru"));
+        User booker = userRepository.save(new User(null, "booker", "read-model-booker@mail.ru"));
+        User stranger = userRepository.save(new User(null, "stranger", "read-model-stranger@mail.ru"));
+        items = List.of(item("drill", owner, true), item("saw", owner, false), item("ladder", owner, true));
+        Item foreign = item("hammer", stranger, true);
+
+        List<Booking> bookings = new ArrayList<>();
+        bookings.add(booking(items.get(0), booker, -300, -290, Status.APPROVED));
+        bookings.add(booking(items.get(0), booker, -200, -190, Status.REJECTED));
+        bookings.add(booking(items.get(0), booker, -10, -5, Status.APPROVED));
+        bookings.add(booking(items.get(0), booker, -1, 1, Status.APPROVED));
+        bookings.add(booking(items.get(0), booker, 5, 10, Status.WAITING));
+        bookings.add(booking(items.get(1), booker, -400, -390, Status.APPROVED));
+        bookings.add(booking(items.get(1), booker, 20, 30, Status.REJECTED));
+        bookings.add(booking(foreign, owner, -10, -5, Status.APPROVED));
+        bookings.add(booking(foreign, owner, 5, 10, Status.WAITING));
+        List<Long> archived = List.of(bookings.get(0).getId(), bookings.get(1).getId(), bookings.get(5).getId());
+        archivedBookingRepository.copyFromBookings(archived);
+        bookingRepository.deleteAllByIdIn(archived);
+    }
+
+    @Test
+    void bookingsByOwnerMatchJpa() {
+        Long ownerId = owner.getId();
+        assertBookings(jpa(bookingRepository.findAllByOwner(ownerId), archivedByOwner(ownerId, null)),
+                bookingReadRepository.findAllByOwner(ownerId));
+        assertBookings(jpa(bookingRepository.findFutureBookingsByOwner(now, ownerId), List.of()),
+                bookingReadRepository.findFutureByOwner(now, ownerId));
+        assertBookings(jpa(bookingRepository.findPastBookingsByOwner(now, ownerId), archivedByOwner(ownerId, null)),
+                bookingReadRepository.findPastByOwner(now, ownerId));
+        assertBookings(jpa(bookingRepository.findCurrentBookingsByOwner(now, ownerId), List.of()),
+                bookingReadRepository.findCurrentByOwner(now, ownerId));
+        assertBookings(jpa(bookingRepository.findByStatusByOwner(Status.WAITING, ownerId), List.of()),
+                bookingReadRepository.findByStatusByOwner(Status.WAITING, ownerId));
+        assertBookings(jpa(bookingRepository.findByStatusByOwner(Status.REJECTED, ownerId),
+                archivedByOwner(ownerId, Status.REJECTED)), bookingReadRepository
+                .findByStatusByOwner(Status.REJECTED, ownerId));
+    }
+
+    @Test
+    void itemsByOwnerMatchJpa() {
+        List<ItemResponseDto> expected = itemRepository.findAllByUser_Id(owner.getId())
+                .stream()
+                .map(ItemMapper.ITEM_MAPPER::toDto)
+                .sorted(Comparator.comparing(ItemResponseDto::getId))
+                .collect(Collectors.toList());
+        assertEquals(expected, itemReadRepository.findAllByOwner(owner.getId()));
+        assertEquals(expected.subList(1, 3), itemReadRepository.findPageByOwner(owner.getId(),
+                new ListingPage(1, 2, 0)));
+        assertEquals(expected.subList(2, 3), itemReadRepository.findPageByOwner(owner.getId(),
+                new ListingPage(0, 2, expected.get(1).getId())));
+
+        Comparator<BookingInItemResponseDto> byId = Comparator.comparing(BookingInItemResponseDto::getId);
+        assertEquals(bookingRepository.findAllByItem_User_Id(owner.getId())
+                .stream()
+                .map(BookingMapper.BOOKING_MAPPER::toBookingInItemDto)
+                .sorted(byId)
+                .collect(Collectors.toList()), bookingReadRepository.findInItemByOwner(owner.getId())
+                .stream()
+                .sorted(byId)
+                .collect(Collectors.toList()));
+
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        List<BookingInItemResponseDto> latest = archivedBookingRepository.findLatestByItems(itemIds)
+                .stream()
+                .map(BookingMapper.BOOKING_MAPPER::fromArchive)
+                .map(BookingMapper.BOOKING_MAPPER::toBookingInItemDto)
+                .sorted(byId)
+                .collect(Collectors.toList());
+        assertFalse(latest.isEmpty());
+        assertEquals(latest, bookingReadRepository.findLatestArchivedByItems(itemIds)
+                .stream()
+                .sorted(byId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void usersMatchJpa() {
+        List<UserDto> expected = userRepository.findAll()
+                .stream()
+                .map(UserMapper.USER_MAPPER::toDto)
+                .sorted(Comparator.comparing(UserDto::getId))
+                .collect(Collectors.toList());
+        assertEquals(expected, userReadRepository.findAll());
+        try (Stream<UserDto> streamed = userReadRepository.streamAll()) {
+            assertEquals(expected, streamed.collect(Collectors.toList()));
+        }
+        assertEquals(expected.subList(1, 2), userReadRepository.findPage(new ListingPage(0, 1,
+                expected.get(0).getId())));
+    }
+
+    private List<ArchivedBooking> archivedByOwner(Long ownerId, Status status) {
+        return archivedBookingRepository.findAll()
+                .stream()
+                .filter(a -> a.getOwnerId().equals(ownerId) && (status == null || a.getStatus() == status))
+                .collect(Collectors.toList());
+    }
+
+    private List<BookingResponseDto> jpa(List<Booking> hot, List<ArchivedBooking> archived) {
+        List<BookingResponseDto> dtos = hot
+                .stream()
+                .map(BookingMapper.BOOKING_MAPPER::toDto)
+                .collect(Collectors.toList());
+        archived.stream()
+                .map(BookingMapper.BOOKING_MAPPER::fromArchive)
+                .map(BookingMapper.BOOKING_MAPPER::toDto)
+                .forEach(dtos::add);
+        return dtos;
+    }
+
+    private void assertBookings(List<BookingResponseDto> expected, List<BookingResponseDto> actual) {
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.stream().sorted(BY_START_DESC).collect(Collectors.toList()), actual);
+    }
+
+    private Item item(String name, User user, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(name + " for rent");
+        item.setAvailable(available);
+        item.setUser(user);
+        return itemRepository.save(item);
+    }
+
+    private Booking booking(Item item, User booker, int startDays, int endDays, Status status) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setOwnerId(item.getUser().getId());
+        booking.setUser(booker);
+        booking.setStart(now.plusDays(startDays));
+        booking.setEnd(now.plusDays(endDays));
+        booking.setStatus(status);
+        return bookingRepository.save(booking);
+    }
+}
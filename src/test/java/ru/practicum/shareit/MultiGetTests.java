@@ -0,0 +1,107 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MultiGetTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void usersComeInRequestOrderOnceEach() {
+        UserDto first = fixtures.user("multiget-first");
+        UserDto second = fixtures.user("multiget-second");
+        UserDto third = fixtures.user("multiget-third");
+        long missing = third.getId() + 1000;
+
+        assertEquals(List.of(third.getId(), first.getId(), second.getId()), userService
+                .getUsersByIds(List.of(third.getId(), missing, first.getId(), third.getId(), second.getId()))
+                .stream()
+                .map(UserDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(), userService.getUsersByIds(List.of(missing)));
+    }
+
+    @Test
+    void itemsComeInRequestOrderOnceEach() {
+        UserDto owner = fixtures.user("multiget-owner");
+        ItemResponseDto first = fixtures.item(owner, "multiget drill");
+        ItemResponseDto second = fixtures.item(owner, "multiget saw");
+        long missing = second.getId() + 1000;
+
+        assertEquals(List.of(second.getId(), first.getId()), itemService
+                .getItemsByIds(List.of(second.getId(), missing, second.getId(), first.getId()), owner.getId())
+                .stream()
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void onlyOwnItemsCarryTheirBookings() {
+        UserDto owner = fixtures.user("multiget-booked-owner");
+        UserDto other = fixtures.user("multiget-other-owner");
+        UserDto booker = fixtures.user("multiget-booker");
+        ItemResponseDto own = fixtures.item(owner, "multiget ladder");
+        BookingResponseDto last = fixtures.pastBooking(owner, booker, own);
+        BookingResponseDto next = fixtures.book(booker, own, 3);
+        ItemResponseDto foreign = fixtures.item(other, "multiget ladder");
+        fixtures.pastBooking(other, booker, foreign);
+        fixtures.book(booker, foreign, 3);
+
+        List<ItemResponseDto> asOwner = itemService.getItemsByIds(List.of(own.getId(), foreign.getId()),
+                owner.getId());
+        assertEquals(last.getId(), asOwner.get(0).getLastBooking().getId());
+        assertEquals(next.getId(), asOwner.get(0).getNextBooking().getId());
+        assertNull(asOwner.get(1).getLastBooking());
+        assertNull(asOwner.get(1).getNextBooking());
+
+        for (ItemResponseDto item : itemService.getItemsByIds(List.of(own.getId(), foreign.getId()),
+                booker.getId())) {
+            assertNull(item.getLastBooking());
+            assertNull(item.getNextBooking());
+        }
+    }
+
+    @Test
+    void tooManyIdsAreABadRequest() throws Exception {
+        UserDto user = fixtures.user("multiget-limit");
+        String tooMany = LongStream.rangeClosed(1, 101)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+        String repeated = LongStream.rangeClosed(1, 101)
+                .mapToObj(i -> "1")
+                .collect(Collectors.joining(","));
+
+        assertEquals(400, mvc.perform(get("/users").param("ids", tooMany))
+                .andReturn().getResponse().getStatus());
+        assertEquals(400, mvc.perform(get("/items").param("ids", tooMany).header("X-Sharer-User-Id", user.getId()))
+                .andReturn().getResponse().getStatus());
+        assertEquals(200, mvc.perform(get("/users").param("ids", repeated))
+                .andReturn().getResponse().getStatus());
+    }
+}
@@ -0,0 +1,145 @@
+package ru.practicum.shareit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingStatsDto;
+import ru.practicum.shareit.booking.event.BookingsRemovedEvent;
+import ru.practicum.shareit.booking.stats.OwnerBookingStatsRegistry;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class OwnerBookingStatsTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private OwnerBookingStatsRegistry registry;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Seeds the owner right after a create and an approve commit, before the registry has applied them: the
+     * seed sees the committed rows, so caching it would count the change twice.
+     */
+    @Test
+    void seedRacingAChangeIsNotCached() {
+        UserDto owner = fixtures.user("seed-owner");
+        UserDto booker = fixtures.user("seed-booker");
+        ItemResponseDto item = fixtures.item(owner, "counted drill");
+
+        BookingResponseDto booking = seedingOnCommit(owner, () -> fixtures.book(booker, item, 1));
+        BookingStatsDto created = bookingService.getOwnerStats(owner.getId());
+        assertEquals(1, created.getAll());
+        assertEquals(1, created.getWaiting());
+
+        seedingOnCommit(owner, () -> bookingService.approveBooking(booking.getId(), owner.getId(), true));
+        BookingStatsDto approved = bookingService.getOwnerStats(owner.getId());
+        assertEquals(1, approved.getAll());
+        assertEquals(0, approved.getWaiting());
+        assertEquals(1, approved.getApproved());
+    }
+
+    @Test
+    void bookingsRollFromFutureToCurrentToPast() throws Exception {
+        UserDto owner = fixtures.user("roll-owner");
+        LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+        fixtures.book(fixtures.user("roll-booker"), fixtures.item(owner, "counted drill"), start, start.plusSeconds(1));
+        assertEquals(1, bookingService.getOwnerStats(owner.getId()).getFuture());
+
+        awaitAndRoll(start);
+        BookingStatsDto current = bookingService.getOwnerStats(owner.getId());
+        assertEquals(0, current.getFuture());
+        assertEquals(1, current.getCurrent());
+
+        awaitAndRoll(start.plusSeconds(1));
+        BookingStatsDto past = bookingService.getOwnerStats(owner.getId());
+        assertEquals(0, past.getCurrent());
+        assertEquals(1, past.getPast());
+    }
+
+    @Test
+    void evictedOwnersTakeTheirTransitionsAlong() {
+        UserDto first = fixtures.user("evicted-first");
+        UserDto second = fixtures.user("evicted-second");
+        UserDto booker = fixtures.user("evicted-booker");
+        fixtures.book(booker, fixtures.item(first, "counted drill"), 1);
+        fixtures.book(booker, fixtures.item(second, "counted drill"), 1);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OwnerBookingStatsRegistry single = new OwnerBookingStatsRegistry(bookingRepository, meterRegistry, 1);
+
+        single.getStats(first.getId());
+        single.getStats(second.getId());
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "bookings.stats").gauge().value());
+        assertEquals(2, transitions(meterRegistry));
+
+        single.onBookingsRemoved(new BookingsRemovedEvent(null));
+        assertEquals(0, transitions(meterRegistry));
+    }
+
+    @Test
+    void handedOverBookingsCountForTheNewOwner() {
+        UserDto owner = fixtures.user("handover-stats-owner");
+        UserDto next = fixtures.user("handover-stats-next");
+        ItemResponseDto item = fixtures.item(owner, "counted drill");
+        fixtures.book(fixtures.user("handover-stats-booker"), item, 1);
+        assertEquals(1, bookingService.getOwnerStats(owner.getId()).getAll());
+        assertEquals(0, bookingService.getOwnerStats(next.getId()).getAll());
+
+        ItemRequestDto handover = new ItemRequestDto();
+        handover.setUser(UserMapper.USER_MAPPER.toUser(next));
+        itemService.updateItem(handover, owner.getId(), item.getId(), null);
+
+        assertEquals(0, bookingService.getOwnerStats(owner.getId()).getAll());
+        assertEquals(1, bookingService.getOwnerStats(next.getId()).getWaiting());
+    }
+
+    private <T> T seedingOnCommit(UserDto owner, Supplier<T> change) {
+        return transactionTemplate.execute(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    CompletableFuture.runAsync(() -> registry.getStats(owner.getId())).join();
+                }
+            });
+            return change.get();
+        });
+    }
+
+    private void awaitAndRoll(LocalDateTime at) throws InterruptedException {
+        Duration left = Duration.between(LocalDateTime.now(), at);
+        if (!left.isNegative()) {
+            Thread.sleep(left.toMillis() + 50);
+        }
+        registry.rollForward();
+    }
+
+    private double transitions(MeterRegistry meterRegistry) {
+        return meterRegistry.get("shareit.booking.stats.transitions").gauge().value();
+    }
+}
@@ -0,0 +1,223 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Decision;
+import ru.practicum.shareit.booking.event.BookingsRemovedEvent;
+import ru.practicum.shareit.exceptions.EntityNotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemRequestDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.event.OwnerItemsChangedEvent;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs against the three H2 databases of the sharded profile. The JCache manager is shared by every context
+ * in the JVM, so this one gets its own, or entities cached here would be read by the other test contexts.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.javax.cache.uri=application.conf")
+@ActiveProfiles({"test", "sharded"})
+@RecordApplicationEvents
+class ShardingTests {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void ownerDataStaysOnOwnerShard() {
+        UserDto booker = fixtures.user("placement-booker");
+        for (int i = 0; i < SHARDS; i++) {
+            UserDto owner = fixtures.user("placement-owner-" + i);
+            int shard = (int) (owner.getId() % SHARDS);
+            ItemResponseDto item = fixtures.item(owner, "placement drill " + i);
+            BookingResponseDto booking = fixtures.book(booker, item, 1);
+
+            assertEquals(shard, item.getId() % SHARDS);
+            assertEquals(shard, booking.getId() % SHARDS);
+            for (int other = 0; other < SHARDS; other++) {
+                int expected = other == shard ? 1 : 0;
+                assertEquals(expected, count(other, "select count(*) from items where id = ?", item.getId()));
+                assertEquals(expected, count(other, "select count(*) from bookings where id = ?", booking.getId()));
+            }
+            assertEquals(List.of(item.getId()), itemService.getItems(owner.getId(), null)
+                    .stream()
+                    .map(ItemResponseDto::getId)
+                    .collect(Collectors.toList()));
+            assertEquals(List.of(booking.getId()), bookingService.getBookingsByOwner(owner.getId(), "ALL")
+                    .stream()
+                    .map(BookingResponseDto::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void bookerListingAndSearchGatherEveryShard() {
+        UserDto booker = fixtures.user("gather-booker");
+        List<Long> itemIds = new ArrayList<>();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            ItemResponseDto item = fixtures.item(fixtures.user("gather-owner-" + i), "gather saw " + i);
+            itemIds.add(item.getId());
+            bookingIds.add(0, fixtures.book(booker, item, i + 1).getId());
+        }
+
+        assertEquals(bookingIds, bookingService.getBookingsByBooker(booker.getId(), "ALL")
+                .stream()
+                .map(BookingResponseDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(itemIds.stream().sorted().collect(Collectors.toList()), itemService
+                .searchItem("gather saw", null, null)
+                .stream()
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList()));
+        List<Long> reversed = new ArrayList<>(itemIds);
+        Collections.reverse(reversed);
+        assertEquals(reversed, itemService.getItemsByIds(reversed, booker.getId())
+                .stream()
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void usersAreKeptOnEveryShard() {
+        UserDto user = fixtures.user("replicated");
+        UserDto changed = new UserDto();
+        changed.setName("renamed");
+        userService.updateUser(changed, user.getId(), null);
+        ItemResponseDto item = fixtures.item(user, "replicated ladder");
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(1, count(shard, "select count(*) from users where id = ? and name = 'renamed'",
+                    user.getId()));
+        }
+
+        userService.deleteUser(user.getId());
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(0, count(shard, "select count(*) from users where id = ?", user.getId()));
+            assertEquals(0, count(shard, "select count(*) from items where id = ?", item.getId()));
+        }
+    }
+
+    @Test
+    void deleteSkipsShardsWithoutACopyOfTheUser() {
+        UserDto owner = fixtures.user("unreplicated-owner");
+        ItemResponseDto item = fixtures.item(owner, "unreplicated drill");
+        int missing = owner.getId() % SHARDS == 1 ? 2 : 1;
+        update(missing, "delete from users where id = ?", owner.getId());
+        events.clear();
+
+        assertEquals(owner.getId(), userService.deleteUser(owner.getId()).getId());
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(0, count(shard, "select count(*) from users where id = ?", owner.getId()));
+        }
+        assertEquals(0, count(shardOf(owner), "select count(*) from items where id = ?", item.getId()));
+        assertEquals(1, events.stream(BookingsRemovedEvent.class).count());
+        assertEquals(1, events.stream(OwnerItemsChangedEvent.class).count());
+        assertThrows(EntityNotFoundException.class, () -> userService.deleteUser(owner.getId()));
+    }
+
+    @Test
+    void itemsOnlyChangeHandsWithinAShard() {
+        UserDto owner = fixtures.user("handover-owner");
+        ItemResponseDto item = fixtures.item(owner, "handover drill");
+        BookingResponseDto booking = fixtures.book(fixtures.user("handover-booker"), item, 1);
+        UserDto sameShard = null;
+        UserDto otherShard = null;
+        for (int i = 0; sameShard == null || otherShard == null; i++) {
+            UserDto candidate = fixtures.user("handover-candidate-" + i);
+            if (candidate.getId() % SHARDS == owner.getId() % SHARDS) {
+                sameShard = candidate;
+            } else {
+                otherShard = candidate;
+            }
+        }
+
+        ItemRequestDto toOtherShard = handover(otherShard);
+        assertThrows(ValidationException.class, () -> itemService.updateItem(toOtherShard, owner.getId(),
+                item.getId(), null));
+        itemService.updateItem(handover(sameShard), owner.getId(), item.getId(), null);
+
+        assertEquals(List.of(item.getId()), itemService.getItems(sameShard.getId(), null)
+                .stream()
+                .map(ItemResponseDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(booking.getId()), bookingService.getBookingsByOwner(sameShard.getId(), "ALL")
+                .stream()
+                .map(BookingResponseDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(), itemService.getItems(owner.getId(), null));
+    }
+
+    @Test
+    void bulkDecisionsOnlyReadTheOwnerShard() {
+        UserDto booker = fixtures.user("decision-booker");
+        UserDto owner = fixtures.user("decision-owner");
+        UserDto other = fixtures.user("decision-other");
+        while (other.getId() % SHARDS == owner.getId() % SHARDS) {
+            other = fixtures.user("decision-other-" + other.getId());
+        }
+        BookingResponseDto own = fixtures.book(booker, fixtures.item(owner, "decided drill"), 1);
+        BookingResponseDto foreign = fixtures.book(booker, fixtures.item(other, "foreign drill"), 1);
+
+        assertEquals(List.of(new BookingDecisionDto(own.getId(), Decision.APPROVED),
+                        new BookingDecisionDto(foreign.getId(), Decision.NOT_FOUND)),
+                bookingService.decideBookings(List.of(own.getId(), foreign.getId()), owner.getId(), true));
+    }
+
+    private ItemRequestDto handover(UserDto owner) {
+        ItemRequestDto dto = new ItemRequestDto();
+        dto.setUser(UserMapper.USER_MAPPER.toUser(owner));
+        return dto;
+    }
+
+    private static int shardOf(UserDto user) {
+        return (int) (user.getId() % SHARDS);
+    }
+
+    private long count(int shard, String sql, Object... args) {
+        return jdbcTemplate(shard).queryForObject(sql, Long.class, args);
+    }
+
+    private void update(int shard, String sql, Object... args) {
+        jdbcTemplate(shard).update(sql, args);
+    }
+
+    private JdbcTemplate jdbcTemplate(int shard) {
+        DataSource shardDataSource = ((AbstractRoutingDataSource) dataSource).getResolvedDataSources().get(shard);
+        return new JdbcTemplate(shardDataSource);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.comments.dto.CommentResponseDto;
+import ru.practicum.shareit.deletion.SoftDeletePurgeJob;
+import ru.practicum.shareit.exceptions.EntityNotFoundException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs in its own context and database, with soft deletes kept for zero days so that a purge takes them
+ * right away.
+ */
+@SpringBootTest(properties = {
+        "shareit.delete.mode=SOFT",
+        "shareit.delete.retention-days=0",
+        "spring.datasource.url=jdbc:h2:mem:soft-delete",
+        "spring.jpa.properties.hibernate.javax.cache.uri=soft-delete.conf"})
+class SoftDeletionTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private SoftDeletePurgeJob purgeJob;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deletedUserIsHiddenAndTheEmailIsFree() {
+        UserDto owner = fixtures.user("soft-owner");
+        UserDto booker = fixtures.user("soft-booker");
+        ItemResponseDto item = fixtures.item(owner, "soft drill");
+        BookingResponseDto booking = fixtures.pastBooking(owner, booker, item);
+        CommentResponseDto comment = fixtures.comment(booker, item);
+
+        userService.deleteUser(booker.getId());
+
+        assertThrows(EntityNotFoundException.class, () -> userService.getUser(booker.getId()));
+        assertTrue(bookingService.getBookingsByOwner(owner.getId(), "ALL").isEmpty());
+        assertTrue(itemService.getItem(owner.getId(), item.getId()).getComments().isEmpty());
+        assertEquals(1, deleted("users", booker.getId()));
+        assertEquals(1, deleted("bookings", booking.getId()));
+        assertEquals(1, deleted("comments", comment.getId()));
+
+        UserDto again = fixtures.user("soft-booker");
+        assertNotEquals(booker.getId(), again.getId());
+        assertEquals(booker.getEmail(), userService.getUser(again.getId()).getEmail());
+    }
+
+    @Test
+    void deletedItemTakesItsRowsAlongAndPurgeRemovesThem() {
+        UserDto owner = fixtures.user("soft-item-owner");
+        UserDto booker = fixtures.user("soft-item-booker");
+        ItemResponseDto item = fixtures.item(owner, "soft drill");
+        BookingResponseDto booking = fixtures.pastBooking(owner, booker, item);
+        CommentResponseDto comment = fixtures.comment(booker, item);
+
+        itemService.deleteItem(item.getId());
+
+        assertThrows(EntityNotFoundException.class, () -> itemService.getItem(owner.getId(), item.getId()));
+        assertTrue(bookingService.getBookingsByBooker(booker.getId(), "ALL").isEmpty());
+        assertEquals(1, deleted("items", item.getId()));
+        assertEquals(1, deleted("bookings", booking.getId()));
+        assertEquals(1, deleted("comments", comment.getId()));
+
+        purgeJob.purge();
+
+        assertEquals(0, rows("items", item.getId()));
+        assertEquals(0, rows("bookings", booking.getId()));
+        assertEquals(0, rows("comments", comment.getId()));
+        assertEquals(1, rows("users", owner.getId()));
+    }
+
+    @Test
+    void deletedRowsAreNotServedFromTheCache() {
+        UserDto owner = fixtures.user("soft-cached-owner");
+        ItemResponseDto item = fixtures.item(owner, "soft cached drill");
+        ItemResponseDto ownedItem = fixtures.item(owner, "soft cached saw");
+        userRepository.findById(owner.getId());
+        itemRepository.findById(item.getId());
+        itemRepository.findById(ownedItem.getId());
+        assertTrue(entityManagerFactory.getCache().contains(User.class, owner.getId()));
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+
+        itemService.deleteItem(item.getId());
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+        assertTrue(itemRepository.findById(item.getId()).isEmpty());
+
+        userService.deleteUser(owner.getId());
+        assertFalse(entityManagerFactory.getCache().contains(User.class, owner.getId()));
+        assertTrue(userRepository.findById(owner.getId()).isEmpty());
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, ownedItem.getId()));
+        assertTrue(itemRepository.findById(ownedItem.getId()).isEmpty());
+    }
+
+    private long deleted(String table, Long id) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where id = ? and deleted_at is not null",
+                Long.class, id);
+    }
+
+    private long rows(String table, Long id) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table + " where id = ?", Long.class, id);
+    }
+}
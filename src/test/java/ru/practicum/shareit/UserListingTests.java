@@ -0,0 +1,74 @@
+package ru.practicum.shareit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserListingTests {
+
+    @Autowired
+    private Fixtures fixtures;
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * The streamed listing must not take a connection before it is written, so a request that fails content
+     * negotiation leaves the pool as it was.
+     */
+    @Test
+    void streamedListingReleasesItsConnection() throws Exception {
+        fixtures.user("streamed-first");
+        UserDto last = fixtures.user("streamed-last");
+        int active = activeConnections();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(406, mvc.perform(get("/users").accept(MediaType.TEXT_HTML)).andReturn().getResponse()
+                    .getStatus());
+        }
+        assertEquals(active, activeConnections());
+
+        MockHttpServletResponse response = mvc.perform(get("/users")).andReturn().getResponse();
+        assertEquals(200, response.getStatus());
+        JsonNode users = objectMapper.readTree(response.getContentAsString());
+        assertEquals(last.getId(), users.get(users.size() - 1).get("id").asLong());
+        assertEquals(active, activeConnections());
+    }
+
+    @Test
+    void pagedListingLinksToTheNextPage() throws Exception {
+        UserDto first = fixtures.user("paged-first");
+        fixtures.user("paged-second");
+
+        MockHttpServletResponse response = mvc.perform(get("/users").param("size", "1")
+                .param("after", String.valueOf(first.getId() - 1))).andReturn().getResponse();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(first.getId(), objectMapper.readTree(response.getContentAsString()).get(0).get("id").asLong());
+        assertTrue(response.getHeader("Link").contains("after=" + first.getId()), response.getHeader("Link"));
+        assertEquals(400, mvc.perform(get("/users").param("size", "0")).andReturn().getResponse().getStatus());
+    }
+
+    private int activeConnections() {
+        return ((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections();
+    }
+}
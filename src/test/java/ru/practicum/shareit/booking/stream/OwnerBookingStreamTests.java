@@ -0,0 +1,193 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingInItemResponseDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Subscribers get emitters that record what they are sent instead of writing a response, and a slow one can be
+ * held inside a send for as long as a test needs.
+ */
+class OwnerBookingStreamTests {
+
+    private static final long OWNER = 1L;
+    private static final long OTHER_OWNER = 2L;
+    private static final int BUFFER_SIZE = 4;
+    private static final int REPLAY_SIZE = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OwnerBookingStream stream = new OwnerBookingStream(meterRegistry, BUFFER_SIZE, REPLAY_SIZE,
+            60_000, 1);
+
+    @AfterEach
+    void close() {
+        stream.close();
+    }
+
+    @Test
+    void reconnectGetsTheEventsItMissed() throws Exception {
+        RecordingEmitter first = subscribe(null);
+        String subscribed = first.next();
+        assertEquals("subscribed", field(subscribed, "event"));
+
+        changed(OWNER, 11);
+        changed(OTHER_OWNER, 12);
+        changed(OWNER, 13);
+
+        RecordingEmitter resumed = subscribe(field(subscribed, "id"));
+        String created = resumed.next();
+        assertEquals("created", field(created, "event"));
+        assertEquals("11", field(created, "data"));
+        assertEquals("13", field(resumed.next(), "data"));
+        assertNull(resumed.poll());
+
+        RecordingEmitter resumedLater = subscribe(field(created, "id"));
+        assertEquals("13", field(resumedLater.next(), "data"));
+        assertNull(resumedLater.poll());
+    }
+
+    @Test
+    void idsThatCannotBeResumedGetAReset() throws Exception {
+        String epoch = field(subscribe(null).next(), "id").split("-")[0];
+
+        assertEquals("reset", field(subscribe("0-0").next(), "event"));
+        assertEquals("reset", field(subscribe(epoch + "-x").next(), "event"));
+        assertEquals("reset", field(subscribe("no id").next(), "event"));
+
+        for (int i = 0; i < REPLAY_SIZE + 2; i++) {
+            changed(OTHER_OWNER, 100 + i);
+        }
+        assertEquals("reset", field(subscribe(epoch + "-1").next(), "event"));
+        RecordingEmitter stillKept = subscribe(epoch + "-2");
+        assertNull(stillKept.poll());
+
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            changed(OWNER, 200 + i);
+        }
+        assertEquals("reset", field(subscribe(epoch + "-" + (REPLAY_SIZE + 2)).next(), "event"));
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsDisconnected() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        CountDownLatch release = slow.hold();
+        stream.subscribe(OWNER, null, slow);
+        assertTrue(slow.awaitHeld());
+
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            changed(OWNER, 300 + i);
+        }
+        assertFalse(slow.completed);
+        assertEquals(0, overflows());
+
+        changed(OWNER, 300 + BUFFER_SIZE);
+        assertTrue(slow.completed);
+        assertEquals(1, overflows());
+        release.countDown();
+    }
+
+    @Test
+    void idleSubscribersGetHeartbeats() throws Exception {
+        RecordingEmitter emitter = subscribe(null);
+        emitter.next();
+
+        stream.heartbeat();
+
+        assertEquals(":heartbeat", emitter.next().trim());
+        assertNull(emitter.poll());
+    }
+
+    private RecordingEmitter subscribe(String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(OWNER, lastEventId, emitter);
+        return emitter;
+    }
+
+    private void changed(long ownerId, long bookingId) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        stream.onBookingChanged(new BookingChangedEvent(bookingId, 1L, ownerId, 3L, null, Status.WAITING, start,
+                start.plusHours(1)));
+    }
+
+    private double overflows() {
+        return meterRegistry.get("shareit.booking.stream.overflows").counter().count();
+    }
+
+    private static String field(String event, String name) {
+        Matcher matcher = Pattern.compile("(?m)^" + name + ":(.*)$").matcher(event);
+        assertTrue(matcher.find(), event);
+        return matcher.group(1);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch held = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+        private volatile boolean completed;
+
+        CountDownLatch hold() {
+            release = new CountDownLatch(1);
+            return release;
+        }
+
+        boolean awaitHeld() throws InterruptedException {
+            return held.await(5, TimeUnit.SECONDS);
+        }
+
+        String next() throws InterruptedException {
+            String event = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "nothing sent");
+            return event;
+        }
+
+        String poll() throws InterruptedException {
+            return sent.poll(100, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder event = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                Object data = part.getData();
+                event.append(data instanceof BookingInItemResponseDto ? ((BookingInItemResponseDto) data).getId()
+                        : data);
+            }
+            sent.add(event.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.dataset;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+
+class BatchRowWriter implements RowWriter {
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final int batchSize;
+    private int pending;
+
+    BatchRowWriter(Connection connection, String table, String columns, int batchSize) throws SQLException {
+        int count = columns.split(",").length;
+        this.connection = connection;
+        this.statement = connection.prepareStatement(String.format("insert into %s (%s) values (%s)", table, columns,
+                String.join(", ", Collections.nCopies(count, "?"))));
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+        statement.addBatch();
+        if (++pending == batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending > 0) {
+            statement.executeBatch();
+            connection.commit();
+            pending = 0;
+        }
+    }
+}
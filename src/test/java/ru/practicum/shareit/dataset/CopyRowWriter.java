@@ -0,0 +1,67 @@
+package ru.practicum.shareit.dataset;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Streams rows as CSV into {@code COPY ... FROM STDIN}, sending a chunk every {@code batchSize} rows.
+ */
+class CopyRowWriter implements RowWriter {
+
+    private final Connection connection;
+    private final CopyIn copy;
+    private final int batchSize;
+    private final StringBuilder chunk = new StringBuilder();
+    private int pending;
+
+    CopyRowWriter(Connection connection, String table, String columns, int batchSize) throws SQLException {
+        this.connection = connection;
+        this.copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(String.format("copy %s (%s) from stdin with (format csv)", table, columns));
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void write(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                chunk.append(',');
+            }
+            if (values[i] instanceof String) {
+                chunk.append('"').append(((String) values[i]).replace("\"", "\"\"")).append('"');
+            } else if (values[i] != null) {
+                chunk.append(values[i]);
+            }
+        }
+        chunk.append('\n');
+        if (++pending == batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+            copy.endCopy();
+            connection.commit();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (pending > 0) {
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            chunk.setLength(0);
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package ru.practicum.shareit.dataset;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Fills empty {@code users}, {@code items}, {@code bookings} and {@code comments} tables with a deterministic,
+ * production-shaped dataset: power-law items per owner, hot items that collect most bookings, bookings spread
+ * over past, current and future with mixed statuses, and comments on finished bookings.
+ * <p>
+ * Every row is drawn from its own random stream derived from the seed and the row number, so a row does not
+ * depend on batch size or on anything written before it. Loads with {@code COPY} on PostgreSQL and with
+ * batched inserts elsewhere. From the command line:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=ru.practicum.shareit.dataset.DatasetGenerator \
+ *     -Dexec.args="jdbc:h2:file:./target/dataset/shareit test test" \
+ *     -Ddataset.users=1000000 -Ddataset.items=3000000 -Ddataset.bookings=50000000
+ * </pre>
+ */
+@Slf4j
+public class DatasetGenerator {
+
+    private static final long USERS = 1;
+    private static final long ITEMS = 2;
+    private static final long BOOKINGS = 3;
+    private static final String[] FIRST_NAMES = {"Anna", "Boris", "Daria", "Egor", "Irina", "Kirill", "Maria",
+            "Nikita", "Olga", "Pavel", "Sofia", "Timur", "Vera", "Yuri"};
+    private static final String[] ADJECTIVES = {"Cordless", "Electric", "Folding", "Heavy", "Compact", "Portable",
+            "Professional", "Old", "New", "Large", "Small", "Wooden", "Steel", "Inflatable"};
+    private static final String[] NOUNS = {"drill", "saw", "ladder", "tent", "bike", "kayak", "projector",
+            "camera", "grill", "sander", "mixer", "vacuum", "trailer", "speaker", "tripod", "hammer"};
+    private static final String[] CITIES = {"Moscow", "Kazan", "Samara", "Perm", "Tula", "Omsk", "Sochi"};
+    private static final String[] COMMENTS = {"Worked perfectly, thanks!", "Good condition.",
+            "A bit worn but did the job.", "Owner was very helpful.", "Would rent again.", "Battery was weak."};
+
+    private final DatasetSpec spec;
+
+    public DatasetGenerator(DatasetSpec spec) {
+        this.spec = spec;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 1) {
+            System.err.println("usage: DatasetGenerator <jdbc-url> [user] [password]");
+            System.exit(2);
+        }
+        try (Connection connection = DriverManager.getConnection(args[0], args.length > 1 ? args[1] : null,
+                args.length > 2 ? args[2] : null)) {
+            createSchema(connection);
+            System.out.println(new DatasetGenerator(DatasetSpec.fromSystemProperties()).generate(connection));
+        }
+    }
+
+    public static void createSchema(Connection connection) {
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+    }
+
+    public Summary generate(Connection connection) throws SQLException {
+        if (spec.getUsers() < 2 || spec.getItems() < 1) {
+            throw new IllegalArgumentException("dataset needs at least two users and one item");
+        }
+        long started = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            requireEmpty(connection);
+            SplittableRandom setup = new SplittableRandom(spec.getSeed());
+            ZipfSampler owners = new ZipfSampler(spec.getUsers(), spec.getOwnerExponent(), setup);
+            ZipfSampler hotItems = new ZipfSampler(spec.getItems(), spec.getItemExponent(), setup);
+            writeUsers(connection);
+            int[] ownerOfItem = writeItems(connection, owners);
+            writeBookings(connection, hotItems, ownerOfItem);
+            long comments = writeComments(connection, hotItems, ownerOfItem);
+            finish(connection, comments);
+            Summary summary = new Summary(spec.getUsers(), spec.getItems(), spec.getBookings(), comments,
+                    (System.nanoTime() - started) / 1_000_000);
+            log.info("generated {}", summary);
+            return summary;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void writeUsers(Connection connection) throws SQLException {
+        try (RowWriter users = RowWriter.open(connection, "users", "id, name, email", spec.getBatchSize())) {
+            for (int id = 1; id <= spec.getUsers(); id++) {
+                SplittableRandom random = random(USERS, id);
+                users.write((long) id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + id,
+                        "user" + id + "@example.com");
+            }
+        }
+        log.info("{} users written", spec.getUsers());
+    }
+
+    private int[] writeItems(Connection connection, ZipfSampler owners) throws SQLException {
+        int[] ownerOfItem = new int[spec.getItems()];
+        try (RowWriter items = RowWriter.open(connection, "items", "id, name, description, is_available, owner_id",
+                spec.getBatchSize())) {
+            for (int id = 1; id <= spec.getItems(); id++) {
+                SplittableRandom random = random(ITEMS, id);
+                int owner = owners.sample(random);
+                String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)];
+                ownerOfItem[id - 1] = owner;
+                items.write((long) id, name, name + " in good condition, pick up in "
+                                + CITIES[random.nextInt(CITIES.length)],
+                        random.nextDouble() < spec.getAvailableShare(), (long) owner);
+            }
+        }
+        log.info("{} items written", spec.getItems());
+        return ownerOfItem;
+    }
+
+    private void writeBookings(Connection connection, ZipfSampler hotItems, int[] ownerOfItem) throws SQLException {
+        long step = Math.max(1, spec.getBookings() / 10);
+        try (RowWriter bookings = RowWriter.open(connection, "bookings",
+                "id, start_date, end_date, item_id, booker_id, owner_id, status", spec.getBatchSize())) {
+            for (long index = 0; index < spec.getBookings(); index++) {
+                BookingRow booking = booking(index, hotItems, ownerOfItem);
+                bookings.write(index + 1, booking.start, booking.end, (long) booking.itemId, (long) booking.bookerId,
+                        (long) ownerOfItem[booking.itemId - 1], booking.status.name());
+                if ((index + 1) % step == 0) {
+                    log.info("{} of {} bookings written", index + 1, spec.getBookings());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the booking streams instead of keeping every booking in memory; each comment continues the random
+     * stream of its booking.
+     */
+    private long writeComments(Connection connection, ZipfSampler hotItems, int[] ownerOfItem) throws SQLException {
+        long id = 0;
+        try (RowWriter comments = RowWriter.open(connection, "comments", "id, text, item_id, author_id, created",
+                spec.getBatchSize())) {
+            for (long index = 0; index < spec.getBookings(); index++) {
+                BookingRow booking = booking(index, hotItems, ownerOfItem);
+                SplittableRandom random = booking.random;
+                if (booking.end.isBefore(spec.getNow()) && booking.status == Status.APPROVED
+                        && random.nextDouble() < spec.getCommentShare()) {
+                    LocalDateTime created = booking.end.plusMinutes(random.nextInt(72 * 60));
+                    if (!created.isBefore(spec.getNow())) {
+                        created = spec.getNow().minusMinutes(1);
+                    }
+                    comments.write(++id, COMMENTS[random.nextInt(COMMENTS.length)], (long) booking.itemId,
+                            (long) booking.bookerId, created);
+                }
+            }
+        }
+        log.info("{} comments written", id);
+        return id;
+    }
+
+    private BookingRow booking(long index, ZipfSampler hotItems, int[] ownerOfItem) {
+        SplittableRandom random = random(BOOKINGS, index);
+        int itemId = hotItems.sample(random);
+        int bookerId = 1 + random.nextInt(spec.getUsers());
+        if (bookerId == ownerOfItem[itemId - 1]) {
+            bookerId = bookerId % spec.getUsers() + 1;
+        }
+        long minutes = Math.max(60, Math.min(30 * 24 * 60,
+                Math.round(-Math.log(1 - random.nextDouble()) * spec.getMeanBookingHours() * 60)));
+        double phase = random.nextDouble();
+        double roll = random.nextDouble();
+        LocalDateTime now = spec.getNow();
+        LocalDateTime start;
+        Status status;
+        if (phase < spec.getPastShare()) {
+            start = now.minusMinutes(minutes + random.nextLong(1, spec.getHistoryDays() * 24L * 60));
+            status = roll < 0.8 ? Status.APPROVED : roll < 0.92 ? Status.REJECTED : Status.CANCELED;
+        } else if (phase < spec.getPastShare() + spec.getCurrentShare()) {
+            start = now.minusMinutes(random.nextLong(1, minutes));
+            status = roll < 0.95 ? Status.APPROVED : Status.CANCELED;
+        } else {
+            start = now.plusMinutes(random.nextLong(1, spec.getHorizonDays() * 24L * 60));
+            status = roll < 0.4 ? Status.WAITING : roll < 0.9 ? Status.APPROVED
+                    : roll < 0.96 ? Status.REJECTED : Status.CANCELED;
+        }
+        return new BookingRow(random, itemId, bookerId, start, start.plusMinutes(minutes), status);
+    }
+
+    private SplittableRandom random(long stream, long index) {
+        return new SplittableRandom(spec.getSeed() * 1_000_003L + stream * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private void requireEmpty(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"users", "items", "bookings", "comments"}) {
+                try (ResultSet rs = statement.executeQuery("select count(*) from " + table)) {
+                    rs.next();
+                    if (rs.getLong(1) > 0) {
+                        throw new IllegalStateException(String.format("table %s is not empty", table));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Ids were assigned explicitly, so identities have to move past them before the application inserts rows.
+     */
+    private void finish(Connection connection, long comments) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(restart("users", spec.getUsers()));
+            statement.execute(restart("items", spec.getItems()));
+            statement.execute(restart("bookings", spec.getBookings()));
+            statement.execute(restart("comments", comments));
+            connection.commit();
+            if (connection.isWrapperFor(PGConnection.class)) {
+                connection.setAutoCommit(true);
+                statement.execute("analyze");
+            }
+        }
+    }
+
+    private String restart(String table, long rows) {
+        return String.format("alter table %s alter column id restart with %d", table, rows + 1);
+    }
+
+    @AllArgsConstructor
+    private static class BookingRow {
+
+        private final SplittableRandom random;
+        private final int itemId;
+        private final int bookerId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Status status;
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Summary {
+
+        private final long users;
+        private final long items;
+        private final long bookings;
+        private final long comments;
+        private final long elapsedMs;
+    }
+}
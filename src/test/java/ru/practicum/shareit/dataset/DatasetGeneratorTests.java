@@ -0,0 +1,124 @@
+package ru.practicum.shareit.dataset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetGeneratorTests {
+
+    @Test
+    void sameSpecGivesSameRows() throws SQLException {
+        DatasetSpec spec = smallSpec();
+        try (Connection first = database("dataset-first"); Connection second = database("dataset-second")) {
+            new DatasetGenerator(spec).generate(first);
+            new DatasetGenerator(spec).generate(second);
+            for (String table : new String[]{"users", "items", "bookings", "comments"}) {
+                assertEquals(rows(first, table), rows(second, table), table);
+            }
+        }
+    }
+
+    @Test
+    void rowsAreProductionShaped() throws SQLException {
+        DatasetSpec spec = smallSpec();
+        try (Connection connection = database("dataset-shape")) {
+            DatasetGenerator.Summary summary = new DatasetGenerator(spec).generate(connection);
+            assertTrue(summary.getComments() > 0);
+
+            long topOwnerItems = single(connection, "select max(c) from (select count(*) c from items " +
+                    "group by owner_id) t");
+            assertTrue(topOwnerItems > 20 * spec.getItems() / spec.getUsers(), "owners are skewed");
+
+            long hotBookings = single(connection, "select sum(c) from (select count(*) c from bookings " +
+                    "group by item_id order by c desc limit " + spec.getItems() / 100 + ") t");
+            assertTrue(hotBookings > spec.getBookings() / 5, "top 1% of items has over 20% of bookings");
+
+            assertTrue(single(connection, "select count(*) from bookings where end_date < '" + spec.getNow() + "'") > 0);
+            assertTrue(single(connection, "select count(*) from bookings where start_date < '" + spec.getNow()
+                    + "' and end_date > '" + spec.getNow() + "'") > 0);
+            assertTrue(single(connection, "select count(*) from bookings where start_date > '" + spec.getNow() + "'")
+                    > 0);
+            assertEquals(4, single(connection, "select count(distinct status) from bookings"));
+            assertEquals(0, single(connection, "select count(*) from bookings where owner_id = booker_id"));
+            assertEquals(0, single(connection, "select count(*) from bookings b join items i on i.id = b.item_id " +
+                    "where i.owner_id <> b.owner_id"));
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("insert into users (name, email) values ('new', 'new@example.com')");
+            }
+            assertEquals(spec.getUsers() + 1, single(connection, "select id from users where name = 'new'"));
+        }
+    }
+
+    /**
+     * Loads {@code dataset.*} scale into an H2 file database under target/dataset and prints the time taken.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "bench", matches = "true")
+    void loadAtScale() throws Exception {
+        Path dir = Paths.get("target", "dataset");
+        Files.createDirectories(dir);
+        Files.deleteIfExists(dir.resolve("shareit.mv.db"));
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + dir.toAbsolutePath()
+                .resolve("shareit"), "test", "test")) {
+            DatasetGenerator.createSchema(connection);
+            DatasetGenerator.Summary summary = new DatasetGenerator(DatasetSpec.fromSystemProperties())
+                    .generate(connection);
+            System.out.printf("%s, %d rows/s%n", summary, (summary.getUsers() + summary.getItems()
+                    + summary.getBookings() + summary.getComments()) * 1000 / Math.max(1, summary.getElapsedMs()));
+        }
+    }
+
+    private DatasetSpec smallSpec() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setUsers(500);
+        spec.setItems(2_000);
+        spec.setBookings(20_000);
+        spec.setBatchSize(1_000);
+        spec.setNow(LocalDateTime.of(2024, 6, 1, 0, 0));
+        return spec;
+    }
+
+    private Connection database(String name) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + name, "test", "test");
+        DatasetGenerator.createSchema(connection);
+        return connection;
+    }
+
+    private List<String> rows(Connection connection, String table) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select * from " + table + " order by id")) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(rs.getObject(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private long single(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
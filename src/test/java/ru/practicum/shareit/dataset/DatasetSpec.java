@@ -0,0 +1,63 @@
+package ru.practicum.shareit.dataset;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Scale and shape of a generated dataset. The same spec, including {@code now}, always produces the same rows.
+ */
+@Data
+public class DatasetSpec {
+
+    private long seed = 42;
+    private int users = 10_000;
+    private int items = 30_000;
+    private long bookings = 500_000;
+    /**
+     * Skew of items per owner; most users own nothing, a few own hundreds.
+     */
+    private double ownerExponent = 1.1;
+    /**
+     * Skew of bookings per item; hot items collect most of the bookings.
+     */
+    private double itemExponent = 1.0;
+    private double availableShare = 0.9;
+    private double pastShare = 0.75;
+    private double currentShare = 0.05;
+    private int historyDays = 730;
+    private int horizonDays = 90;
+    private double meanBookingHours = 48;
+    /**
+     * Share of finished approved bookings that got a comment.
+     */
+    private double commentShare = 0.1;
+    private int batchSize = 5_000;
+    private LocalDateTime now = LocalDate.now().atStartOfDay();
+
+    /**
+     * Reads {@code dataset.<field>} system properties over the defaults.
+     */
+    public static DatasetSpec fromSystemProperties() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setSeed(Long.getLong("dataset.seed", spec.getSeed()));
+        spec.setUsers(Integer.getInteger("dataset.users", spec.getUsers()));
+        spec.setItems(Integer.getInteger("dataset.items", spec.getItems()));
+        spec.setBookings(Long.getLong("dataset.bookings", spec.getBookings()));
+        spec.setOwnerExponent(doubleProperty("dataset.owner-exponent", spec.getOwnerExponent()));
+        spec.setItemExponent(doubleProperty("dataset.item-exponent", spec.getItemExponent()));
+        spec.setCommentShare(doubleProperty("dataset.comment-share", spec.getCommentShare()));
+        spec.setBatchSize(Integer.getInteger("dataset.batch-size", spec.getBatchSize()));
+        String now = System.getProperty("dataset.now");
+        if (now != null) {
+            spec.setNow(LocalDateTime.parse(now));
+        }
+        return spec;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.dataset;
+
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bulk path into one table: {@code COPY} on PostgreSQL, batched inserts anywhere else.
+ */
+interface RowWriter extends AutoCloseable {
+
+    void write(Object... values) throws SQLException;
+
+    @Override
+    void close() throws SQLException;
+
+    static RowWriter open(Connection connection, String table, String columns, int batchSize) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return new CopyRowWriter(connection, table, columns, batchSize);
+        }
+        return new BatchRowWriter(connection, table, columns, batchSize);
+    }
+}
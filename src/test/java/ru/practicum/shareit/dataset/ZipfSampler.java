@@ -0,0 +1,44 @@
+package ru.practicum.shareit.dataset;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws ids {@code 1..n} with probability proportional to {@code 1 / rank^exponent}. Ranks are shuffled over ids,
+ * so the most popular id is not simply the first one.
+ */
+class ZipfSampler {
+
+    private final double[] cdf;
+    private final int[] idByRank;
+
+    ZipfSampler(int n, double exponent, SplittableRandom random) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+        idByRank = new int[n];
+        for (int i = 0; i < n; i++) {
+            idByRank[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = idByRank[i];
+            idByRank[i] = idByRank[j];
+            idByRank[j] = swap;
+        }
+    }
+
+    int sample(SplittableRandom random) {
+        int rank = Arrays.binarySearch(cdf, random.nextDouble());
+        if (rank < 0) {
+            rank = Math.min(-rank - 1, cdf.length - 1);
+        }
+        return idByRank[rank];
+    }
+}
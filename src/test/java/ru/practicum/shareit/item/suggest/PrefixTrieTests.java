@@ -0,0 +1,121 @@
+package ru.practicum.shareit.item.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixTrieTests {
+
+    @Test
+    void childrenAddedAndRemovedOutOfOrderStayFindable() {
+        PrefixTrie trie = new PrefixTrie(10);
+        for (String name : new String[]{"m", "c", "x", "a", "p", "e"}) {
+            trie.add(name);
+        }
+        for (String name : new String[]{"a", "c", "e", "m", "p", "x"}) {
+            assertEquals(List.of(name), trie.complete(name, 10));
+        }
+
+        trie.remove("m");
+        trie.remove("a");
+        trie.remove("x");
+
+        assertEquals(List.of(), trie.complete("m", 10));
+        for (String name : new String[]{"c", "e", "p"}) {
+            assertEquals(List.of(name), trie.complete(name, 10));
+        }
+        assertEquals(List.of("c", "e", "p"), trie.complete("", 10));
+    }
+
+    @Test
+    void removedNamesLeaveNoEmptyNodes() {
+        PrefixTrie trie = new PrefixTrie(10);
+        trie.add("saw");
+        trie.add("sander");
+        trie.add("sa");
+        assertEquals(8, trie.nodeCount());
+
+        trie.remove("sander");
+        assertEquals(4, trie.nodeCount());
+        trie.remove("sa");
+        assertEquals(4, trie.nodeCount());
+        trie.remove("saw");
+        assertEquals(1, trie.nodeCount());
+        assertEquals(0, trie.size());
+        assertEquals(List.of(), trie.complete("s", 10));
+    }
+
+    @Test
+    void everyNodeKeepsItsOwnBestCompletions() {
+        PrefixTrie trie = new PrefixTrie(2);
+        trie.add("drill");
+        trie.add("drill");
+        trie.add("drum");
+        trie.add("driver");
+        trie.add("dryer");
+
+        assertEquals(List.of("drill", "driver"), trie.complete("d", 10));
+        assertEquals(List.of("drill", "driver"), trie.complete("dri", 10));
+        assertEquals(List.of("drum"), trie.complete("dru", 10));
+        assertEquals(List.of("drill"), trie.complete("d", 1));
+
+        trie.remove("drill");
+        trie.remove("drill");
+
+        assertEquals(List.of("driver", "drum"), trie.complete("d", 10));
+        assertEquals(List.of("driver"), trie.complete("dri", 10));
+
+        trie.add("dryer");
+        trie.add("dryer");
+
+        assertEquals(List.of("dryer", "driver"), trie.complete("dr", 10));
+    }
+
+    @Test
+    void namesSharedByItemsCountOncePerItem() {
+        PrefixTrie trie = new PrefixTrie(10);
+        trie.add("saw");
+        trie.add("saw");
+        trie.add("sander");
+        assertEquals(2, trie.size());
+        assertEquals(List.of("saw", "sander"), trie.complete("s", 10));
+
+        trie.remove("saw");
+        assertEquals(List.of("sander", "saw"), trie.complete("s", 10));
+
+        trie.remove("saw");
+        assertEquals(List.of("sander"), trie.complete("s", 10));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void casingOfTheLatestRemainingNameIsShown() {
+        PrefixTrie trie = new PrefixTrie(10);
+        trie.add("Drill");
+        trie.add("DRILL");
+        assertEquals(List.of("DRILL"), trie.complete("dr", 10));
+
+        trie.remove("DRILL");
+        assertEquals(List.of("Drill"), trie.complete("DR", 10));
+
+        trie.remove("drill");
+        assertEquals(List.of("Drill"), trie.complete("dr", 10));
+    }
+
+    @Test
+    void keysIgnoreTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            PrefixTrie trie = new PrefixTrie(10);
+            trie.add("DRILL BIT");
+            assertEquals(List.of("DRILL BIT"), trie.complete("drill bi", 10));
+            assertEquals(List.of("DRILL BIT"), trie.complete("DRILL BI", 10));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
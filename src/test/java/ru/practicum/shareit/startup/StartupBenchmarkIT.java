@@ -0,0 +1,122 @@
+package ru.practicum.shareit.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Time from process start to the first successful {@code GET /users}, for a plain boot and for a boot with the
+ * fast-start profile and the AppCDS archive. Runs against a prepared H2 file database, since fast-start boots
+ * skip schema work. Run with {@code mvn -P fast-start verify -Dbench=true}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class StartupBenchmarkIT {
+
+    private static final Duration BOOT_TIMEOUT = Duration.ofSeconds(120);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        Path jar = Paths.get(System.getProperty("shareit.jar"));
+        Path archive = Paths.get(System.getProperty("shareit.cds-archive"));
+        assertTrue(Files.exists(jar), "build the jar with -P fast-start first");
+        int runs = Integer.getInteger("bench.runs", 5);
+
+        List<Long> baseline = new ArrayList<>();
+        List<Long> fastStart = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            baseline.add(boot(List.of("-jar", jar.toString(), "--spring.profiles.active=ci")));
+            fastStart.add(boot(List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto",
+                    "-jar", jar.toString(), "--spring.profiles.active=ci,fast-start")));
+        }
+        log.info("time to first GET /users, median of {} runs: baseline {} ms, fast-start {} ms",
+                runs, median(baseline), median(fastStart));
+    }
+
+    private long boot(List<String> args) throws Exception {
+        String url = prepareDatabase();
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(args);
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=" + url);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - started < BOOT_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("application exited with code " + process.exitValue());
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return Duration.ofNanos(System.nanoTime() - started).toMillis();
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("no successful response within " + BOOT_TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private String prepareDatabase() throws IOException, SQLException {
+        Path dir = Paths.get("target", "bench");
+        Files.createDirectories(dir);
+        Files.deleteIfExists(dir.resolve("shareit.mv.db"));
+        String url = "jdbc:h2:file:" + new File(dir.toFile(), "shareit").getAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url, "test", "test")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        }
+        return url;
+    }
+
+    private int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}